@@ -130,6 +130,25 @@ public final class Intents {
          */
         public static final String MISSING_CAMERA_PERMISSION_DIALOG_MESSAGE = "MISSING_CAMERA_PERMISSION_DIALOG_MESSAGE";
 
+        /**
+         * Decode every n-th frame with TRY_HARDER, and all other frames without it.
+         * If provided, should be an int. Defaults to 0 (disabled).
+         */
+        public static final String TRY_HARDER_INTERVAL = "TRY_HARDER_INTERVAL";
+
+        /**
+         * Decode one frame with TRY_HARDER after every this many consecutive frames without a
+         * result.
+         * If provided, should be an int. Defaults to 0 (disabled).
+         */
+        public static final String TRY_HARDER_AFTER_MISSES = "TRY_HARDER_AFTER_MISSES";
+
+        /**
+         * Learn which formats are scanned most often, and try those first. What was learned is
+         * kept across scans. If provided, should be a boolean. Defaults to false.
+         */
+        public static final String LEARN_FORMATS = "LEARN_FORMATS";
+
         /**
          * Whether or not the orientation should be locked when the activity is first started.
          * Defaults to true.
@@ -222,6 +241,11 @@ public final class Intents {
          */
         public static final int MIXED_SCAN = 2;
 
+        /**
+         * Scan both normal and inverted barcodes in every frame, binarizing the image only once.
+         */
+        public static final int DUAL_SCAN = 3;
+
         private Scan() {
         }
     }
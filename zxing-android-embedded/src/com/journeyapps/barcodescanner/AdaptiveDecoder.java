@@ -0,0 +1,108 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * Decoder that chooses between HybridBinarizer and GlobalHistogramBinarizer, based on which one
+ * recently worked better.
+ *
+ * The success rate and cost of each binarizer are recorded over a sliding window of recent
+ * frames. Most frames use the binarizer with the highest success rate (or the lowest cost, if the
+ * success rates are equal), and every explorationInterval frames the other one is tried, so that
+ * the decision can change when conditions change.
+ *
+ * The outcomes are kept in BinarizerStats, which can be queried from any thread, for example for
+ * logging.
+ */
+public class AdaptiveDecoder extends Decoder {
+    /**
+     * The binarizers to choose from.
+     */
+    public enum BinarizerType {
+        /** HybridBinarizer - local thresholds, better for 2D codes and uneven lighting. */
+        HYBRID,
+        /** GlobalHistogramBinarizer - cheaper, often better for 1D codes on evenly lit labels. */
+        GLOBAL_HISTOGRAM
+    }
+
+    public static final int DEFAULT_WINDOW_SIZE = 30;
+    public static final int DEFAULT_EXPLORATION_INTERVAL = 8;
+
+    private final BinarizerStats stats;
+
+    /**
+     * Create an AdaptiveDecoder with the default window size and exploration interval.
+     *
+     * @param reader the reader
+     */
+    public AdaptiveDecoder(Reader reader) {
+        this(reader, new BinarizerStats());
+    }
+
+    /**
+     *
+     * @param reader the reader
+     * @param windowSize the number of recent attempts to record per binarizer
+     * @param explorationInterval try the other binarizer once every this many frames, at least 2
+     */
+    public AdaptiveDecoder(Reader reader, int windowSize, int explorationInterval) {
+        this(reader, new BinarizerStats(windowSize, explorationInterval));
+    }
+
+    /**
+     *
+     * @param reader the reader
+     * @param stats the outcomes of the binarizers, possibly shared with other decoders
+     */
+    public AdaptiveDecoder(Reader reader, BinarizerStats stats) {
+        super(reader);
+        this.stats = stats;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        BinarizerType type = stats.nextBinarizer();
+        long start = System.nanoTime();
+        Result result = decode(new BinaryBitmap(createBinarizer(type, source)));
+        stats.record(type, result != null, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Create the binarizer of a type. Override this to invert the source, for example.
+     *
+     * @param type the type
+     * @param source the image source
+     * @return the binarizer
+     */
+    protected Binarizer createBinarizer(BinarizerType type, LuminanceSource source) {
+        if (type == BinarizerType.GLOBAL_HISTOGRAM) {
+            return new GlobalHistogramBinarizer(source);
+        } else {
+            return new HybridBinarizer(source);
+        }
+    }
+
+    public BinarizerStats getStats() {
+        return stats;
+    }
+
+    /**
+     *
+     * @return the binarizer currently used for most frames
+     */
+    public BinarizerType getPreferredBinarizer() {
+        return stats.getPreferredBinarizer();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveDecoder{" + stats + '}';
+    }
+}
@@ -23,6 +23,18 @@ import java.util.Map;
  * and adds a bitmap with scanned barcode.
  */
 public class BarcodeResult {
+    /**
+     * How much of the preview frame is kept with a result.
+     */
+    public enum ImageRetention {
+        /** Keep no image. getBitmap() returns null. */
+        NONE,
+        /** Keep a compact copy of the region around the barcode. */
+        BARCODE_REGION,
+        /** Keep the full preview frame. */
+        FULL_FRAME
+    }
+
     private static final float PREVIEW_LINE_WIDTH = 4.0f;
     private static final float PREVIEW_DOT_WIDTH = 10.0f;
 
@@ -54,8 +66,9 @@ public class BarcodeResult {
     }
 
     /**
-     * @return {@link Bitmap} with barcode preview
+     * @return {@link Bitmap} with barcode preview, or null if no image was kept
      * @see #getBitmapWithResultPoints(int)
+     * @see ImageRetention
      */
     public Bitmap getBitmap() {
         return sourceData.getBitmap(null, mScaleFactor);
@@ -70,7 +83,8 @@ public class BarcodeResult {
 
     /**
      * @param color Color of result points
-     * @return {@link Bitmap} with result points on it, or plain bitmap, if no result points
+     * @return {@link Bitmap} with result points on it, or plain bitmap, if no result points. May be
+     * null if no image was kept.
      */
     public Bitmap getBitmapWithResultPoints(int color) {
         Bitmap bitmap = getBitmap();
@@ -78,9 +92,15 @@ public class BarcodeResult {
         List<ResultPoint> points = getTransformedResultPoints();
 
         if (!points.isEmpty() && bitmap != null) {
-            barcode = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(barcode);
-            canvas.drawBitmap(bitmap, 0, 0, null);
+            Canvas canvas;
+            if (bitmap.isMutable() && bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+                // The bitmap was created for us, so we can draw on it directly.
+                canvas = new Canvas(barcode);
+            } else {
+                barcode = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
+                canvas = new Canvas(barcode);
+                canvas.drawBitmap(bitmap, 0, 0, null);
+            }
             Paint paint = new Paint();
             paint.setColor(color);
             if (points.size() == 2) {
@@ -9,6 +9,7 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.client.android.R;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,19 @@ public class BarcodeView extends CameraPreview {
 
     private DecoderFactory decoderFactory;
 
+    private BarcodeResult.ImageRetention resultImageRetention = BarcodeResult.ImageRetention.FULL_FRAME;
+
+    private int decoderThreadCount = 1;
+
+    private int decoderPipelineDepth = 0;
+
+    private long maxFrameAge = 0;
+
+    private FrameGate frameGate;
+
+    private RoiTracker roiTracker;
+
+    private ResultFilter resultFilter;
 
     private Handler resultHandler;
 
@@ -56,6 +70,28 @@ public class BarcodeView extends CameraPreview {
                     }
                 }
                 return true;
+            } else if (message.what == R.id.zxing_decode_multiple_succeeded) {
+                //noinspection unchecked
+                List<BarcodeResult> results = (List<BarcodeResult>) message.obj;
+
+                if (callback != null && decodeMode != DecodeMode.NONE) {
+                    if (callback instanceof MultiBarcodeCallback) {
+                        ((MultiBarcodeCallback) callback).barcodeResults(results);
+                    } else if (decodeMode == DecodeMode.SINGLE) {
+                        // A single scan delivers a single result.
+                        if (!results.isEmpty()) {
+                            callback.barcodeResult(results.get(0));
+                        }
+                    } else {
+                        for (BarcodeResult result : results) {
+                            callback.barcodeResult(result);
+                        }
+                    }
+                    if (decodeMode == DecodeMode.SINGLE) {
+                        stopDecoding();
+                    }
+                }
+                return true;
             } else if (message.what == R.id.zxing_decode_failed) {
                 // Failed. Next preview is automatically tried.
                 return true;
@@ -105,10 +141,19 @@ public class BarcodeView extends CameraPreview {
 
         this.decoderFactory = decoderFactory;
         if (this.decoderThread != null) {
-            this.decoderThread.setDecoder(createDecoder());
+            // One decoder for each running thread.
+            this.decoderThread.setDecoders(createDecoders(this.decoderThread.getThreadCount()));
         }
     }
 
+    private List<Decoder> createDecoders(int count) {
+        List<Decoder> decoders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            decoders.add(createDecoder());
+        }
+        return decoders;
+    }
+
     private Decoder createDecoder() {
         if (decoderFactory == null) {
             decoderFactory = createDefaultDecoderFactory();
@@ -129,6 +174,175 @@ public class BarcodeView extends CameraPreview {
         return decoderFactory;
     }
 
+    /**
+     * Set the number of threads decoding preview frames in parallel. Each thread gets its own
+     * Decoder from the DecoderFactory.
+     *
+     * More threads help when decoding a frame takes longer than the interval between preview
+     * frames, for example with dense QR or PDF417 codes. Results are still delivered in the order
+     * the frames were captured.
+     *
+     * Defaults to 1. Takes effect the next time decoding is started.
+     *
+     * Call this from UI thread only.
+     *
+     * @param decoderThreadCount the number of threads, at least 1
+     */
+    public void setDecoderThreadCount(int decoderThreadCount) {
+        Util.validateMainThread();
+
+        if (decoderThreadCount < 1) {
+            throw new IllegalArgumentException("decoderThreadCount must be at least 1");
+        }
+        this.decoderThreadCount = decoderThreadCount;
+    }
+
+    public int getDecoderThreadCount() {
+        return decoderThreadCount;
+    }
+
+    /**
+     * Set the number of preview frames that may be captured ahead while all decoder threads are
+     * busy.
+     *
+     * By default (0), the next frame is only requested after decoding the current one, so capture
+     * and decoding never overlap. A depth of 1 is typically enough to keep the decoders busy, at
+     * the cost of an additional preview buffer.
+     *
+     * Takes effect the next time decoding is started.
+     *
+     * Call this from UI thread only.
+     *
+     * @param pipelineDepth the number of frames to capture ahead, 0 or more
+     */
+    public void setDecoderPipelineDepth(int pipelineDepth) {
+        Util.validateMainThread();
+
+        if (pipelineDepth < 0) {
+            throw new IllegalArgumentException("pipelineDepth must not be negative");
+        }
+        this.decoderPipelineDepth = pipelineDepth;
+    }
+
+    public int getDecoderPipelineDepth() {
+        return decoderPipelineDepth;
+    }
+
+    /**
+     * Set the maximum age of a preview frame when decoding starts. Older frames are dropped
+     * instead of decoded, which keeps the latency of results bounded when decoding is slower
+     * than the camera.
+     *
+     * Takes effect the next time decoding is started.
+     *
+     * Call this from UI thread only.
+     *
+     * @param maxFrameAge the maximum age in milliseconds, or 0 for no limit (the default)
+     */
+    public void setMaxFrameAge(long maxFrameAge) {
+        Util.validateMainThread();
+
+        this.maxFrameAge = maxFrameAge;
+    }
+
+    public long getMaxFrameAge() {
+        return maxFrameAge;
+    }
+
+    /**
+     * Set a check to skip frames before decoding, for example SharpnessGate to skip blurry frames.
+     *
+     * Call this from UI thread only.
+     *
+     * @param frameGate the gate, or null to decode all frames (the default)
+     */
+    public void setFrameGate(FrameGate frameGate) {
+        Util.validateMainThread();
+
+        this.frameGate = frameGate;
+        if (this.decoderThread != null) {
+            this.decoderThread.setFrameGate(frameGate);
+        }
+    }
+
+    public FrameGate getFrameGate() {
+        return frameGate;
+    }
+
+    /**
+     * Set a tracker to narrow the decode region to the area around the last detected barcode.
+     * This reduces the number of pixels decoded when the same barcode is scanned repeatedly in
+     * continuous mode.
+     *
+     * Call this from UI thread only.
+     *
+     * @param roiTracker the tracker, or null to always decode the full framing rectangle
+     *                   (the default)
+     */
+    public void setRoiTracker(RoiTracker roiTracker) {
+        Util.validateMainThread();
+
+        this.roiTracker = roiTracker;
+        if (this.decoderThread != null) {
+            this.decoderThread.setRoiTracker(roiTracker);
+        }
+    }
+
+    public RoiTracker getRoiTracker() {
+        return roiTracker;
+    }
+
+    /**
+     * Set a filter for the decoded results, applied on the decoder thread before they are
+     * delivered to the callback. For example, a DuplicateFilter drops barcodes that were
+     * already reported recently in continuous mode, and a ConsensusFilter only reports 1D
+     * barcodes decoded with the same value in multiple frames. Use a CompositeResultFilter to
+     * combine them.
+     *
+     * Call this from UI thread only.
+     *
+     * @param resultFilter the filter, or null to deliver all results (the default)
+     */
+    public void setResultFilter(ResultFilter resultFilter) {
+        Util.validateMainThread();
+
+        this.resultFilter = resultFilter;
+        if (this.decoderThread != null) {
+            this.decoderThread.setResultFilter(resultFilter);
+        }
+    }
+
+    public ResultFilter getResultFilter() {
+        return resultFilter;
+    }
+
+    /**
+     * Set how much of the preview frame is kept with each BarcodeResult.
+     *
+     * By default the full frame is kept. Use BARCODE_REGION or NONE to reduce memory usage when
+     * results are kept around for a while, for example when queueing results in continuous mode.
+     *
+     * Call this from UI thread only.
+     *
+     * @param imageRetention the retention policy
+     */
+    public void setResultImageRetention(BarcodeResult.ImageRetention imageRetention) {
+        Util.validateMainThread();
+
+        this.resultImageRetention = imageRetention;
+        if (this.decoderThread != null) {
+            this.decoderThread.setImageRetention(imageRetention);
+        }
+    }
+
+    /**
+     *
+     * @return how much of the preview frame is kept with each BarcodeResult
+     */
+    public BarcodeResult.ImageRetention getResultImageRetention() {
+        return resultImageRetention;
+    }
+
     /**
      * Decode a single barcode, then stop decoding.
      *
@@ -143,10 +357,13 @@ public class BarcodeView extends CameraPreview {
     }
 
     /**
-     * Continuously decode barcodes. The same barcode may be returned multiple times per second.
+     * Continuously decode barcodes. The same barcode may be returned multiple times per second,
+     * unless a DuplicateFilter is set with {@link #setResultFilter(ResultFilter)}.
      *
      * The callback will only be called on the UI thread.
      *
+     * Pass a MultiBarcodeCallback to receive all barcodes found in a frame in a single call.
+     *
      * @param callback called with the barcode result, as well as possible ResultPoints
      */
     public void decodeContinuous(BarcodeCallback callback) {
@@ -175,8 +392,19 @@ public class BarcodeView extends CameraPreview {
             // We only start the thread if both:
             // 1. decoding was requested
             // 2. the preview is active
-            decoderThread = new DecoderThread(getCameraInstance(), createDecoder(), resultHandler);
+            decoderThread = new DecoderThread(getCameraInstance(), createDecoders(decoderThreadCount), resultHandler);
             decoderThread.setCropRect(getPreviewFramingRect());
+            decoderThread.setImageRetention(resultImageRetention);
+            decoderThread.setStopAfterResult(decodeMode == DecodeMode.SINGLE);
+            decoderThread.setDecodeMultiple(callback instanceof MultiBarcodeCallback);
+            decoderThread.setPipelineDepth(decoderPipelineDepth);
+            decoderThread.setMaxFrameAge(maxFrameAge);
+            decoderThread.setFrameGate(frameGate);
+            decoderThread.setRoiTracker(roiTracker);
+            decoderThread.setResultFilter(resultFilter);
+            if (roiTracker != null) {
+                roiTracker.reset();
+            }
             decoderThread.start();
         }
     }
@@ -0,0 +1,186 @@
+package com.journeyapps.barcodescanner;
+
+import com.journeyapps.barcodescanner.AdaptiveDecoder.BinarizerType;
+
+/**
+ * The recent success rate and cost of each binarizer, that AdaptiveDecoder chooses the binarizer
+ * of each frame from. When the decoders of all threads record to the same instance, each of them
+ * chooses based on all frames instead of only its own.
+ *
+ * @see DefaultDecoderFactory#getBinarizerStats()
+ */
+public class BinarizerStats {
+    /**
+     * Outcomes of the most recent attempts with a binarizer.
+     */
+    private static class Window {
+        private final boolean[] successes;
+        private final long[] costs;
+        private int next = 0;
+        private int count = 0;
+        private int successCount = 0;
+        private long totalCost = 0;
+
+        Window(int size) {
+            successes = new boolean[size];
+            costs = new long[size];
+        }
+
+        void add(boolean success, long cost) {
+            if (count == successes.length) {
+                // Drop the oldest
+                if (successes[next]) {
+                    successCount--;
+                }
+                totalCost -= costs[next];
+            } else {
+                count++;
+            }
+            successes[next] = success;
+            costs[next] = cost;
+            if (success) {
+                successCount++;
+            }
+            totalCost += cost;
+            next = (next + 1) % successes.length;
+        }
+
+        float getSuccessRate() {
+            return count == 0 ? 0 : (float) successCount / count;
+        }
+
+        long getAverageCost() {
+            return count == 0 ? 0 : totalCost / count;
+        }
+    }
+
+    private final Window[] windows;
+    private final int explorationInterval;
+    private final Object LOCK = new Object();
+    // Guarded by LOCK.
+    private BinarizerType best = BinarizerType.HYBRID;
+    private long frameCount = 0;
+
+    /**
+     * Create BinarizerStats with the default window size and exploration interval.
+     */
+    public BinarizerStats() {
+        this(AdaptiveDecoder.DEFAULT_WINDOW_SIZE, AdaptiveDecoder.DEFAULT_EXPLORATION_INTERVAL);
+    }
+
+    /**
+     *
+     * @param windowSize the number of recent attempts to record per binarizer
+     * @param explorationInterval try the other binarizer once every this many frames, at least 2
+     */
+    public BinarizerStats(int windowSize, int explorationInterval) {
+        if (windowSize < 1 || explorationInterval < 2) {
+            throw new IllegalArgumentException("Invalid window size or exploration interval");
+        }
+        this.explorationInterval = explorationInterval;
+        BinarizerType[] types = BinarizerType.values();
+        windows = new Window[types.length];
+        for (int i = 0; i < types.length; i++) {
+            windows[i] = new Window(windowSize);
+        }
+    }
+
+    /**
+     * Choose the binarizer for the next frame.
+     *
+     * @return the binarizer
+     */
+    public BinarizerType nextBinarizer() {
+        synchronized (LOCK) {
+            frameCount++;
+            if (frameCount % explorationInterval == 0) {
+                return other(best);
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Record the outcome of an attempt, and update the best binarizer.
+     *
+     * @param type the binarizer used
+     * @param success true if a barcode was decoded
+     * @param cost the time taken, in nanoseconds
+     */
+    public void record(BinarizerType type, boolean success, long cost) {
+        synchronized (LOCK) {
+            windows[type.ordinal()].add(success, cost);
+
+            Window current = windows[best.ordinal()];
+            Window alternative = windows[other(best).ordinal()];
+            if (alternative.count == 0) {
+                return;
+            }
+            float currentRate = current.getSuccessRate();
+            float alternativeRate = alternative.getSuccessRate();
+            if (alternativeRate > currentRate ||
+                    (alternativeRate == currentRate && alternative.getAverageCost() < current.getAverageCost())) {
+                best = other(best);
+            }
+        }
+    }
+
+    private static BinarizerType other(BinarizerType type) {
+        return type == BinarizerType.HYBRID ? BinarizerType.GLOBAL_HISTOGRAM : BinarizerType.HYBRID;
+    }
+
+    /**
+     *
+     * @return the binarizer currently used for most frames
+     */
+    public BinarizerType getPreferredBinarizer() {
+        synchronized (LOCK) {
+            return best;
+        }
+    }
+
+    /**
+     *
+     * @param type the binarizer
+     * @return the success rate in the recent window, between 0 and 1
+     */
+    public float getSuccessRate(BinarizerType type) {
+        synchronized (LOCK) {
+            return windows[type.ordinal()].getSuccessRate();
+        }
+    }
+
+    /**
+     *
+     * @param type the binarizer
+     * @return the average time per frame in the recent window, in nanoseconds
+     */
+    public long getAverageCost(BinarizerType type) {
+        synchronized (LOCK) {
+            return windows[type.ordinal()].getAverageCost();
+        }
+    }
+
+    /**
+     *
+     * @param type the binarizer
+     * @return the number of attempts in the recent window
+     */
+    public int getSampleCount(BinarizerType type) {
+        synchronized (LOCK) {
+            return windows[type.ordinal()].count;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("BinarizerStats{preferred=").append(getPreferredBinarizer());
+        for (BinarizerType type : BinarizerType.values()) {
+            builder.append(", ").append(type)
+                    .append("={rate=").append(getSuccessRate(type))
+                    .append(", cost=").append(getAverageCost(type) / 1000).append("us")
+                    .append(", samples=").append(getSampleCount(type)).append('}');
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Binarizer that caches the black matrix of another binarizer.
+ *
+ * BinaryBitmap already caches the black matrix, but only for itself. This allows multiple
+ * BinaryBitmaps, for example a normal and an inverted one, to share one binarization pass.
+ */
+public class CachingBinarizer extends Binarizer {
+    private final Binarizer binarizer;
+    private BitMatrix matrix;
+
+    public CachingBinarizer(Binarizer binarizer) {
+        super(binarizer.getLuminanceSource());
+        this.binarizer = binarizer;
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        return binarizer.getBlackRow(y, row);
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        if (matrix == null) {
+            matrix = binarizer.getBlackMatrix();
+        }
+        return matrix;
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new CachingBinarizer(binarizer.createBinarizer(source));
+    }
+}
@@ -4,7 +4,9 @@ import android.Manifest;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
@@ -281,6 +283,16 @@ public class CaptureManager {
 
         inactivityTimer.cancel();
         barcodeView.pauseAndWait();
+
+        DecoderFactory decoderFactory = barcodeView.getDecoderFactory();
+        if (decoderFactory instanceof DefaultDecoderFactory) {
+            FormatHitRates hitRates = ((DefaultDecoderFactory) decoderFactory).getFormatHitRates();
+            if (hitRates != null) {
+                SharedPreferences.Editor editor = activity.getSharedPreferences(FormatHitRates.PREFERENCES_NAME, Context.MODE_PRIVATE).edit();
+                hitRates.save(editor);
+                editor.apply();
+            }
+        }
     }
 
     /**
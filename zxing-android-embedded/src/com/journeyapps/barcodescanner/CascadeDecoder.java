@@ -0,0 +1,103 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decoder that decodes most frames quickly, and some frames thoroughly with TRY_HARDER.
+ *
+ * Every interval-th frame, and one frame after every missesBeforeEscalation consecutive frames
+ * without a result, is decoded with TRY_HARDER. While nothing is in view, most frames therefore
+ * stay fast. With TRY_HARDER, the 1D readers also try the image rotated by 90 degrees. All other
+ * frames are decoded without TRY_HARDER. Both readers are configured once, so nothing is rebuilt
+ * per frame.
+ *
+ * The frames and misses are counted by a TryHarderSchedule.
+ */
+public class CascadeDecoder extends Decoder {
+    public static final int DEFAULT_INTERVAL = 5;
+    public static final int DEFAULT_MISSES_BEFORE_ESCALATION = 10;
+
+    private final MultiFormatReader thoroughReader;
+    private final TryHarderSchedule schedule;
+
+    /**
+     * Create a CascadeDecoder with the default schedule.
+     *
+     * @param hints the hints, as for MultiFormatReader. TRY_HARDER is ignored.
+     */
+    public CascadeDecoder(Map<DecodeHintType, ?> hints) {
+        this(hints, DEFAULT_INTERVAL, DEFAULT_MISSES_BEFORE_ESCALATION);
+    }
+
+    /**
+     *
+     * @param hints the hints, as for MultiFormatReader. TRY_HARDER is ignored.
+     * @param interval decode every interval-th frame with TRY_HARDER, or 0 to only escalate after
+     *                 misses
+     * @param missesBeforeEscalation decode one frame with TRY_HARDER after every this many
+     *                               consecutive frames without a result, or 0 to only escalate
+     *                               periodically
+     */
+    public CascadeDecoder(Map<DecodeHintType, ?> hints, int interval, int missesBeforeEscalation) {
+        this(hints, new TryHarderSchedule(interval, missesBeforeEscalation));
+    }
+
+    /**
+     *
+     * @param hints the hints, as for MultiFormatReader. TRY_HARDER is ignored.
+     * @param schedule the schedule, possibly shared with other decoders
+     */
+    public CascadeDecoder(Map<DecodeHintType, ?> hints, TryHarderSchedule schedule) {
+        super(createReader(hints, false));
+        this.thoroughReader = createReader(hints, true);
+        this.schedule = schedule;
+    }
+
+    private static MultiFormatReader createReader(Map<DecodeHintType, ?> hints, boolean tryHarder) {
+        Map<DecodeHintType, Object> readerHints = new EnumMap<>(DecodeHintType.class);
+        readerHints.putAll(hints);
+        if (tryHarder) {
+            readerHints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        } else {
+            readerHints.remove(DecodeHintType.TRY_HARDER);
+        }
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(readerHints);
+        return reader;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        boolean thorough = schedule.nextFrameThorough();
+        MultiFormatReader reader = thorough ? thoroughReader : (MultiFormatReader) getReader();
+        clearPossibleResultPoints();
+        Result result;
+        try {
+            result = reader.decodeWithState(toBitmap(source));
+        } catch (Exception e) {
+            result = null;
+        } finally {
+            reader.reset();
+        }
+        schedule.recordResult(result != null);
+        return result;
+    }
+
+    public TryHarderSchedule getSchedule() {
+        return schedule;
+    }
+
+    public int getInterval() {
+        return schedule.getInterval();
+    }
+
+    public int getMissesBeforeEscalation() {
+        return schedule.getMissesBeforeEscalation();
+    }
+}
@@ -0,0 +1,46 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FrameGate that accepts a frame only if all of its gates accept it.
+ *
+ * The gates are checked in order, and checking stops at the first gate rejecting the frame, so
+ * put cheap gates first. decodeFinished() is passed on to all gates.
+ */
+public class CompositeFrameGate implements FrameGate {
+    private final List<FrameGate> gates;
+
+    public CompositeFrameGate(FrameGate... gates) {
+        this(Arrays.asList(gates));
+    }
+
+    public CompositeFrameGate(List<FrameGate> gates) {
+        this.gates = new ArrayList<>(gates);
+    }
+
+    @Override
+    public boolean accept(LuminanceSource source) {
+        for (FrameGate gate : gates) {
+            if (!gate.accept(source)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void decodeFinished(boolean success) {
+        for (FrameGate gate : gates) {
+            gate.decodeFinished(success);
+        }
+    }
+
+    public List<FrameGate> getGates() {
+        return gates;
+    }
+}
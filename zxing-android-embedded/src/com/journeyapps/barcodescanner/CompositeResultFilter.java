@@ -0,0 +1,40 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ResultFilter that applies its filters in order, each to the results of the previous one.
+ *
+ * For example, a ConsensusFilter followed by a DuplicateFilter reports each confirmed barcode
+ * once.
+ */
+public class CompositeResultFilter implements ResultFilter {
+    private final List<ResultFilter> filters;
+
+    public CompositeResultFilter(ResultFilter... filters) {
+        this(Arrays.asList(filters));
+    }
+
+    public CompositeResultFilter(List<ResultFilter> filters) {
+        this.filters = new ArrayList<>(filters);
+    }
+
+    @Override
+    public List<Result> filter(List<Result> results) {
+        for (ResultFilter filter : filters) {
+            if (results.isEmpty()) {
+                break;
+            }
+            results = filter.filter(results);
+        }
+        return results;
+    }
+
+    public List<ResultFilter> getFilters() {
+        return filters;
+    }
+}
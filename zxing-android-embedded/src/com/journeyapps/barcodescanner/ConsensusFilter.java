@@ -0,0 +1,146 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Only reports a barcode once it was decoded with the same value in multiple frames.
+ *
+ * 1D formats have little or no error detection, so a single frame may be misread, for example on
+ * glossy packaging. This counts the frames each (format, text) candidate was decoded in, and
+ * reports a result once its candidate has requiredVotes votes within the last window
+ * milliseconds. Formats with error correction, such as QR codes, bypass voting by default.
+ *
+ * The table of candidates is bounded: when it is full, the candidate with the oldest vote is
+ * evicted.
+ *
+ * Times are taken from Result.getTimestamp().
+ */
+public class ConsensusFilter implements ResultFilter {
+    public static final int DEFAULT_REQUIRED_VOTES = 3;
+    public static final long DEFAULT_WINDOW = 1000;
+    public static final int DEFAULT_MAX_CANDIDATES = 16;
+
+    /**
+     * Formats with error correction, that are reported without voting by default.
+     */
+    public static final Set<BarcodeFormat> DEFAULT_BYPASS_FORMATS = EnumSet.of(
+            BarcodeFormat.AZTEC, BarcodeFormat.DATA_MATRIX, BarcodeFormat.MAXICODE, BarcodeFormat.PDF_417,
+            BarcodeFormat.QR_CODE);
+
+    /**
+     * The times of the most recent votes for a candidate.
+     */
+    private static class Candidate {
+        private final long[] votes;
+        private int next = 0;
+        private int count = 0;
+
+        Candidate(int size) {
+            votes = new long[size];
+        }
+
+        void vote(long time) {
+            votes[next] = time;
+            next = (next + 1) % votes.length;
+            count = Math.min(count + 1, votes.length);
+        }
+
+        // The time of the oldest vote kept, once there are votes.length of them.
+        long oldest() {
+            return votes[next];
+        }
+    }
+
+    private final int requiredVotes;
+    private final long window;
+    private final Set<BarcodeFormat> bypassFormats;
+    private final Object LOCK = new Object();
+    // Guarded by LOCK. In access order, so the eldest entry has the oldest vote.
+    private final LinkedHashMap<String, Candidate> candidates;
+
+    public ConsensusFilter() {
+        this(DEFAULT_REQUIRED_VOTES, DEFAULT_WINDOW);
+    }
+
+    /**
+     *
+     * @param requiredVotes the number of frames a barcode must be decoded in
+     * @param window the time span of the required votes, in milliseconds
+     */
+    public ConsensusFilter(int requiredVotes, long window) {
+        this(requiredVotes, window, DEFAULT_MAX_CANDIDATES, DEFAULT_BYPASS_FORMATS);
+    }
+
+    /**
+     *
+     * @param requiredVotes the number of frames a barcode must be decoded in
+     * @param window the time span of the required votes, in milliseconds
+     * @param maxCandidates the maximum number of candidates to count votes for
+     * @param bypassFormats formats that are reported without voting
+     */
+    public ConsensusFilter(int requiredVotes, long window, final int maxCandidates, Collection<BarcodeFormat> bypassFormats) {
+        if (requiredVotes < 1 || window < 0 || maxCandidates < 1) {
+            throw new IllegalArgumentException("Invalid votes, window or maximum candidates");
+        }
+        this.requiredVotes = requiredVotes;
+        this.window = window;
+        this.bypassFormats = bypassFormats.isEmpty() ? EnumSet.noneOf(BarcodeFormat.class) : EnumSet.copyOf(bypassFormats);
+        this.candidates = new LinkedHashMap<String, Candidate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Candidate> eldest) {
+                return size() > maxCandidates;
+            }
+        };
+    }
+
+    @Override
+    public List<Result> filter(List<Result> results) {
+        List<Result> filtered = new ArrayList<>(results.size());
+        synchronized (LOCK) {
+            for (Result result : results) {
+                if (bypassFormats.contains(result.getBarcodeFormat())) {
+                    filtered.add(result);
+                    continue;
+                }
+                String key = result.getBarcodeFormat() + ":" + result.getText();
+                Candidate candidate = candidates.get(key);
+                if (candidate == null) {
+                    candidate = new Candidate(requiredVotes);
+                    candidates.put(key, candidate);
+                }
+                long now = result.getTimestamp();
+                candidate.vote(now);
+                if (candidate.count == requiredVotes && now - candidate.oldest() <= window) {
+                    filtered.add(result);
+                }
+            }
+        }
+        return filtered;
+    }
+
+    public int getRequiredVotes() {
+        return requiredVotes;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * Forget all votes.
+     */
+    public void clear() {
+        synchronized (LOCK) {
+            candidates.clear();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.HybridBinarizer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -49,6 +50,24 @@ public class Decoder implements ResultPointCallback {
         return decode(toBitmap(source));
     }
 
+    /**
+     * Given an image source, attempt to decode all barcodes in it.
+     *
+     * The default implementation returns the result of decode(), if any.
+     *
+     * Must not raise an exception.
+     *
+     * @param source the image source
+     * @return the results, possibly empty
+     */
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        Result result = decode(source);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(result);
+    }
+
     /**
      * Given an image source, convert to a binary bitmap.
      *
@@ -68,7 +87,7 @@ public class Decoder implements ResultPointCallback {
      * @return a Result or null
      */
     protected Result decode(BinaryBitmap bitmap) {
-        possibleResultPoints.clear();
+        clearPossibleResultPoints();
         try {
             if (reader instanceof MultiFormatReader) {
                 // Optimization - MultiFormatReader's normal decode() method is slow.
@@ -97,6 +116,13 @@ public class Decoder implements ResultPointCallback {
         return new ArrayList<>(possibleResultPoints);
     }
 
+    /**
+     * Clear the possible ResultPoints, before decoding a new image.
+     */
+    protected void clearPossibleResultPoints() {
+        possibleResultPoints.clear();
+    }
+
     @Override
     public void foundPossibleResultPoint(ResultPoint point) {
         possibleResultPoints.add(point);
@@ -5,7 +5,7 @@ import com.google.zxing.DecodeHintType;
 import java.util.Map;
 
 /**
- * Factory to create Decoder instances. Typically one instance will be created per DecoderThread.
+ * Factory to create Decoder instances. Typically one instance will be created per decoding thread.
  *
  * @see DefaultDecoderFactory
  */
@@ -5,7 +5,9 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Message;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.SparseArray;
 
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.Result;
@@ -14,50 +16,212 @@ import com.google.zxing.client.android.R;
 import com.journeyapps.barcodescanner.camera.CameraInstance;
 import com.journeyapps.barcodescanner.camera.PreviewCallback;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
+ * Decodes preview frames on one or more background threads.
  *
+ * With multiple decoders, each decoder gets its own thread, and frames are spread across the
+ * threads. Results are still delivered in the order the frames were captured.
+ *
+ * By default the next frame is only requested once a decoder is idle. With a pipeline depth above
+ * 0, frames are captured ahead while all decoders are busy, so that the next frame is ready as
+ * soon as a decoder finishes.
+ *
+ * Captured frames are handed to the decoders through a FrameMailbox, where a newer frame replaces
+ * an older one that was not decoded yet. Frames older than the maximum frame age are dropped
+ * instead of decoded.
+ *
+ * The outcomes of the frames are passed to the FrameGate, RoiTracker and ResultFilter in capture
+ * order as well, regardless of which decoder finishes first.
  */
 public class DecoderThread {
     private static final String TAG = DecoderThread.class.getSimpleName();
 
     private CameraInstance cameraInstance;
-    private HandlerThread thread;
-    private Handler handler;
-    private Decoder decoder;
+    private List<Decoder> decoders;
+    private List<Worker> workers = new ArrayList<>();
     private Handler resultHandler;
     private Rect cropRect;
+    private volatile BarcodeResult.ImageRetention imageRetention = BarcodeResult.ImageRetention.FULL_FRAME;
+    private boolean stopAfterResult = false;
+    private boolean decodeMultiple = false;
+    private FrameGate frameGate;
+    private RoiTracker roiTracker;
+    private ResultFilter resultFilter;
+    private int pipelineDepth = 0;
+    private long maxFrameAge = 0;
+    private final FrameMailbox mailbox = new FrameMailbox();
     private boolean running = false;
     private final Object LOCK = new Object();
 
-    private final Handler.Callback callback = new Handler.Callback() {
+    // The fields below are guarded by LOCK.
+
+    // True while we are waiting for a preview frame from the camera.
+    private boolean previewRequested = false;
+    // Sequence number of the next decoded frame. Frames are taken from the mailbox in capture
+    // order, so this is also the capture order.
+    private int nextSequence = 0;
+    // Sequence number of the next frame to finish.
+    private int nextFinished = 0;
+    // Frames decoded out of order, by sequence number.
+    private final SparseArray<DecodedFrame> decodedFrames = new SparseArray<>();
+    private boolean resultDelivered = false;
+
+    /**
+     * A decoder with its own thread.
+     */
+    private class Worker implements Handler.Callback {
+        private final int index;
+        private HandlerThread thread;
+        private Handler handler;
+        // Guarded by LOCK. Only used by this worker's thread.
+        private Decoder decoder;
+        private boolean busy = false;
+        private boolean stopped = false;
+
+        Worker(int index, Decoder decoder) {
+            this.index = index;
+            this.decoder = decoder;
+        }
+
+        void start() {
+            thread = new HandlerThread(TAG + "-" + index);
+            thread.start();
+            handler = new Handler(thread.getLooper(), this);
+        }
+
+        // Must be called while holding LOCK. A decode in progress still finishes.
+        void stop() {
+            stopped = true;
+            handler.removeCallbacksAndMessages(null);
+            thread.quit();
+        }
+
         @Override
         public boolean handleMessage(Message message) {
             if (message.what == R.id.zxing_decode) {
-                decode((SourceData) message.obj);
-            } else if (message.what == R.id.zxing_preview_failed) {
-                // Error already logged. Try again.
-                requestNextPreview();
+                decodeAvailable(this);
             }
             return true;
         }
-    };
+    }
+
+    /**
+     * A frame that was decoded or skipped, waiting to be finished in capture order.
+     */
+    private static class DecodedFrame {
+        private final SourceData sourceData;
+        private final Rect region;
+        // Null if the frame was not passed through a gate or tracker.
+        private final FrameGate gate;
+        private final RoiTracker tracker;
+        private final boolean skipped;
+        private long start;
+        private List<Result> results = Collections.emptyList();
+        private List<ResultPoint> possibleResultPoints = Collections.emptyList();
+
+        DecodedFrame(SourceData sourceData, Rect region, FrameGate gate, RoiTracker tracker, boolean skipped) {
+            this.sourceData = sourceData;
+            this.region = region;
+            this.gate = gate;
+            this.tracker = tracker;
+            this.skipped = skipped;
+        }
+    }
 
     public DecoderThread(CameraInstance cameraInstance, Decoder decoder, Handler resultHandler) {
+        this(cameraInstance, Collections.singletonList(decoder), resultHandler);
+    }
+
+    /**
+     * Create a DecoderThread with a thread per decoder.
+     *
+     * @param cameraInstance the camera to request preview frames from
+     * @param decoders the decoders, at least one. Each decoder is only used from its own thread.
+     * @param resultHandler the handler to deliver results to
+     */
+    public DecoderThread(CameraInstance cameraInstance, List<Decoder> decoders, Handler resultHandler) {
         Util.validateMainThread();
 
+        if (decoders.isEmpty()) {
+            throw new IllegalArgumentException("At least one decoder is required");
+        }
+
         this.cameraInstance = cameraInstance;
-        this.decoder = decoder;
+        this.decoders = new ArrayList<>(decoders);
         this.resultHandler = resultHandler;
     }
 
     public Decoder getDecoder() {
-        return decoder;
+        synchronized (LOCK) {
+            return decoders.get(0);
+        }
     }
 
     public void setDecoder(Decoder decoder) {
-        this.decoder = decoder;
+        setDecoders(Collections.singletonList(decoder));
+    }
+
+    /**
+     * Replace the decoders. There is a thread per decoder, and each decoder is only used from its
+     * own thread. If the number of decoders changes while decoding, the threads are restarted.
+     *
+     * @param decoders the new decoders, at least one
+     */
+    public void setDecoders(List<Decoder> decoders) {
+        if (decoders.isEmpty()) {
+            throw new IllegalArgumentException("At least one decoder is required");
+        }
+        synchronized (LOCK) {
+            this.decoders = new ArrayList<>(decoders);
+            if (workers.size() == decoders.size()) {
+                // Each worker picks up its new decoder with the next frame.
+                for (int i = 0; i < workers.size(); i++) {
+                    workers.get(i).decoder = decoders.get(i);
+                }
+            } else if (running) {
+                // Frames being decoded by the old workers still finish with their old decoders.
+                for (Worker worker : workers) {
+                    worker.stop();
+                }
+                startWorkers();
+                if (!mailbox.isEmpty()) {
+                    Worker worker = workers.get(0);
+                    worker.busy = true;
+                    worker.handler.sendEmptyMessage(R.id.zxing_decode);
+                }
+                requestNextPreview();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of decoding threads, which is the number of decoders
+     */
+    public int getThreadCount() {
+        synchronized (LOCK) {
+            return decoders.size();
+        }
+    }
+
+    private Decoder getDecoder(Worker worker) {
+        synchronized (LOCK) {
+            return worker.decoder;
+        }
+    }
+
+    // Must be called while holding LOCK.
+    private void startWorkers() {
+        workers.clear();
+        for (int i = 0; i < decoders.size(); i++) {
+            Worker worker = new Worker(i, decoders.get(i));
+            worker.start();
+            workers.add(worker);
+        }
     }
 
     public Rect getCropRect() {
@@ -68,6 +232,128 @@ public class DecoderThread {
         this.cropRect = cropRect;
     }
 
+    public BarcodeResult.ImageRetention getImageRetention() {
+        return imageRetention;
+    }
+
+    /**
+     * Set how much of the preview frame is kept with a BarcodeResult.
+     *
+     * @param imageRetention the retention policy
+     */
+    public void setImageRetention(BarcodeResult.ImageRetention imageRetention) {
+        this.imageRetention = imageRetention;
+    }
+
+    public boolean isStopAfterResult() {
+        return stopAfterResult;
+    }
+
+    /**
+     * Set to true to stop after the first successful result. Results of frames that are still
+     * being decoded at that point are ignored.
+     *
+     * @param stopAfterResult true to stop after the first result
+     */
+    public void setStopAfterResult(boolean stopAfterResult) {
+        this.stopAfterResult = stopAfterResult;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Set the number of frames that may be captured ahead while all decoders are busy.
+     *
+     * With 0, the next frame is only requested once a decoder is idle, so each decoder waits for a
+     * frame after every decode. With 1, one frame is captured ahead. With 2 or more, the camera
+     * keeps capturing while the decoders are busy, and each new frame replaces the waiting one, so
+     * decoding always starts with the latest frame.
+     *
+     * @param pipelineDepth the number of frames to capture ahead, 0 or more
+     */
+    public void setPipelineDepth(int pipelineDepth) {
+        if (pipelineDepth < 0) {
+            throw new IllegalArgumentException("pipelineDepth must not be negative");
+        }
+        synchronized (LOCK) {
+            this.pipelineDepth = pipelineDepth;
+        }
+    }
+
+    public long getMaxFrameAge() {
+        return maxFrameAge;
+    }
+
+    /**
+     * Set the maximum age of a frame when decoding starts. Older frames are dropped.
+     *
+     * This bounds the latency of results when decoding is slower than the camera.
+     *
+     * @param maxFrameAge the maximum age in milliseconds, or 0 for no limit
+     */
+    public void setMaxFrameAge(long maxFrameAge) {
+        synchronized (LOCK) {
+            this.maxFrameAge = maxFrameAge;
+        }
+    }
+
+    public boolean isDecodeMultiple() {
+        return decodeMultiple;
+    }
+
+    /**
+     * Set to true to decode all barcodes in a frame with Decoder.decodeMultiple(). The results
+     * of a frame are delivered in a single R.id.zxing_decode_multiple_succeeded message, with a
+     * List of BarcodeResults.
+     *
+     * @param decodeMultiple true to decode all barcodes in a frame
+     */
+    public void setDecodeMultiple(boolean decodeMultiple) {
+        this.decodeMultiple = decodeMultiple;
+    }
+
+    public FrameGate getFrameGate() {
+        return frameGate;
+    }
+
+    /**
+     * Set a check to skip frames before decoding. A skipped frame is released right away, and the
+     * next frame is requested.
+     *
+     * @param frameGate the gate, or null to decode all frames
+     */
+    public void setFrameGate(FrameGate frameGate) {
+        this.frameGate = frameGate;
+    }
+
+    public RoiTracker getRoiTracker() {
+        return roiTracker;
+    }
+
+    /**
+     * Set a tracker to narrow the decode region to the area around the last detected barcode.
+     *
+     * @param roiTracker the tracker, or null to always decode the full crop rectangle
+     */
+    public void setRoiTracker(RoiTracker roiTracker) {
+        this.roiTracker = roiTracker;
+    }
+
+    public ResultFilter getResultFilter() {
+        return resultFilter;
+    }
+
+    /**
+     * Set a filter for the results of each frame, applied before they are delivered.
+     *
+     * @param resultFilter the filter, or null to deliver all results
+     */
+    public void setResultFilter(ResultFilter resultFilter) {
+        this.resultFilter = resultFilter;
+    }
+
     /**
      * Start decoding.
      *
@@ -76,11 +362,11 @@ public class DecoderThread {
     public void start() {
         Util.validateMainThread();
 
-        thread = new HandlerThread(TAG);
-        thread.start();
-        handler = new Handler(thread.getLooper(), callback);
-        running = true;
-        requestNextPreview();
+        synchronized (LOCK) {
+            startWorkers();
+            running = true;
+            requestNextPreview();
+        }
     }
 
     /**
@@ -93,8 +379,10 @@ public class DecoderThread {
 
         synchronized (LOCK) {
             running = false;
-            handler.removeCallbacksAndMessages(null);
-            thread.quit();
+            for (Worker worker : workers) {
+                worker.stop();
+            }
+            mailbox.clear();
         }
     }
 
@@ -104,70 +392,292 @@ public class DecoderThread {
             // Only post if running, to prevent a warning like this:
             //   java.lang.RuntimeException: Handler (android.os.Handler) sending message to a Handler on a dead thread
 
+            // Replaces any frame that was not decoded yet.
+            mailbox.put(sourceData);
+
             // synchronize to handle cases where this is called concurrently with stop()
             synchronized (LOCK) {
-                if (running) {
-                    // Post to our thread.
-                    handler.obtainMessage(R.id.zxing_decode, sourceData).sendToTarget();
+                previewRequested = false;
+                if (!isActive()) {
+                    mailbox.clear();
+                    return;
+                }
+                Worker worker = findIdleWorker();
+                if (worker != null) {
+                    // Wake up the worker. If all workers are busy, the frame is taken by the first
+                    // one done.
+                    worker.busy = true;
+                    worker.handler.sendEmptyMessage(R.id.zxing_decode);
                 }
+                // Keep the other workers busy, or capture ahead.
+                requestNextPreview();
             }
         }
 
         @Override
         public void onPreviewError(Exception e) {
             synchronized (LOCK) {
-                if (running) {
-                    // Post to our thread.
-                    handler.obtainMessage(R.id.zxing_preview_failed).sendToTarget();
+                previewRequested = false;
+                if (isActive()) {
+                    // Error already logged. Try again.
+                    requestNextPreview();
                 }
             }
         }
     };
 
+    // Must be called while holding LOCK.
+    private boolean isActive() {
+        return running && !(stopAfterResult && resultDelivered);
+    }
+
+    // Must be called while holding LOCK.
+    private Worker findIdleWorker() {
+        for (Worker worker : workers) {
+            if (!worker.busy) {
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    // Request a preview frame, if there is a worker to decode it, or room to capture ahead.
+    // Must be called while holding LOCK.
     private void requestNextPreview() {
-        cameraInstance.requestPreview(previewCallback);
+        int framesInFlight = mailbox.isEmpty() ? 0 : 1;
+        for (Worker worker : workers) {
+            if (worker.busy) {
+                framesInFlight++;
+            }
+        }
+        if (isActive() && !previewRequested && framesInFlight < workers.size() + pipelineDepth) {
+            previewRequested = true;
+            cameraInstance.requestPreview(previewCallback);
+        }
     }
 
     protected LuminanceSource createSource(SourceData sourceData) {
         if (this.cropRect == null) {
             return null;
         } else {
-            return sourceData.createSource();
+            return sourceData.createLuminanceSource();
         }
     }
 
-    private void decode(SourceData sourceData) {
-        long start = System.currentTimeMillis();
-        Result rawResult = null;
-        sourceData.setCropRect(cropRect);
-        LuminanceSource source = createSource(sourceData);
+    /**
+     * Decode frames from the mailbox, until it is empty.
+     */
+    private void decodeAvailable(Worker worker) {
+        while (true) {
+            SourceData sourceData;
+            int sequence;
+            RoiTracker tracker;
+            FrameGate gate;
+            synchronized (LOCK) {
+                sourceData = isActive() && !worker.stopped ? mailbox.take(SystemClock.elapsedRealtime(), maxFrameAge) : null;
+                if (sourceData == null) {
+                    worker.busy = false;
+                    requestNextPreview();
+                    return;
+                }
+                sequence = nextSequence++;
+                tracker = roiTracker;
+                gate = frameGate;
+            }
+
+            // Outside LOCK, so that the other decoder threads and the camera don't wait for the
+            // gate. Its verdict is applied in capture order by finish().
+            Rect region = tracker == null ? cropRect : tracker.getRegion(cropRect);
+            sourceData.setCropRect(region);
+            LuminanceSource source = createSource(sourceData);
+            DecodedFrame frame;
+            if (source == null) {
+                frame = new DecodedFrame(sourceData, region, null, null, false);
+            } else {
+                boolean skipped = gate != null && !gate.accept(source);
+                frame = new DecodedFrame(sourceData, region, gate, tracker, skipped);
+            }
+            if (frame.skipped) {
+                // Skip this frame, and continue with the next one, if any.
+                synchronized (LOCK) {
+                    finish(sequence, frame);
+                }
+                continue;
+            }
+            decode(worker, sequence, frame, source);
+        }
+    }
+
+    private void decode(Worker worker, int sequence, DecodedFrame frame, LuminanceSource source) {
+        frame.start = System.currentTimeMillis();
+        Decoder decoder = getDecoder(worker);
 
         if (source != null) {
-            rawResult = decoder.decode(source);
+            if (decodeMultiple) {
+                frame.results = decoder.decodeMultiple(source);
+            } else {
+                Result rawResult = decoder.decode(source);
+                if (rawResult != null) {
+                    frame.results = Collections.singletonList(rawResult);
+                }
+            }
+        }
+        // The decoder may start on the next frame before this frame is finished.
+        frame.possibleResultPoints = new ArrayList<>(decoder.getPossibleResultPoints());
+
+        synchronized (LOCK) {
+            finish(sequence, frame);
+        }
+    }
+
+    /**
+     * Finish a frame, after all frames captured before it: update the gate and tracker, filter
+     * the results, and deliver them.
+     *
+     * Must be called while holding LOCK.
+     */
+    private void finish(int sequence, DecodedFrame frame) {
+        decodedFrames.put(sequence, frame);
+        DecodedFrame next;
+        while ((next = decodedFrames.get(nextFinished)) != null) {
+            decodedFrames.remove(nextFinished);
+            nextFinished++;
+            if (next.skipped) {
+                // Nothing to deliver. The next frame is requested when the worker is idle.
+                next.sourceData.release();
+            } else {
+                deliver(createMessages(next));
+            }
+        }
+    }
+
+    // Must be called while holding LOCK.
+    private List<Message> createMessages(DecodedFrame frame) {
+        SourceData sourceData = frame.sourceData;
+        List<Result> rawResults = frame.results;
+        if (frame.gate != null) {
+            frame.gate.decodeFinished(!rawResults.isEmpty());
+        }
+        if (frame.tracker != null) {
+            frame.tracker.update(frame.region, sourceData.getScalingFactor(), rawResults, frame.possibleResultPoints);
+        }
+        ResultFilter filter = resultFilter;
+        if (!rawResults.isEmpty() && filter != null) {
+            // After the gate and tracker, which should still see the barcode as found.
+            rawResults = filter.filter(rawResults);
         }
 
-        if (rawResult != null) {
+        List<Message> messages = new ArrayList<>(2);
+        if (!rawResults.isEmpty()) {
             // Don't log the barcode contents for security.
             long end = System.currentTimeMillis();
-            Log.d(TAG, "Found barcode in " + (end - start) + " ms");
+            Log.d(TAG, "Found " + rawResults.size() + " barcode(s) in " + (end - frame.start) + " ms");
             if (resultHandler != null) {
-                BarcodeResult barcodeResult = new BarcodeResult(rawResult, sourceData);
-                Message message = Message.obtain(resultHandler, R.id.zxing_decode_succeeded, barcodeResult);
+                Message message;
+                if (decodeMultiple) {
+                    List<BarcodeResult> barcodeResults = new ArrayList<>(rawResults.size());
+                    for (Result rawResult : rawResults) {
+                        barcodeResults.add(new BarcodeResult(rawResult, retainImage(rawResult, sourceData)));
+                    }
+                    message = Message.obtain(resultHandler, R.id.zxing_decode_multiple_succeeded, barcodeResults);
+                } else {
+                    Result rawResult = rawResults.get(0);
+                    BarcodeResult barcodeResult = new BarcodeResult(rawResult, retainImage(rawResult, sourceData));
+                    message = Message.obtain(resultHandler, R.id.zxing_decode_succeeded, barcodeResult);
+                }
                 Bundle bundle = new Bundle();
                 message.setData(bundle);
-                message.sendToTarget();
+                messages.add(message);
             }
         } else {
             if (resultHandler != null) {
                 Message message = Message.obtain(resultHandler, R.id.zxing_decode_failed);
-                message.sendToTarget();
+                messages.add(message);
             }
         }
         if (resultHandler != null) {
-            List<ResultPoint> resultPoints = BarcodeResult.transformResultPoints(decoder.getPossibleResultPoints(), sourceData);
-                    Message message = Message.obtain(resultHandler, R.id.zxing_possible_result_points, resultPoints);
+            List<ResultPoint> resultPoints = BarcodeResult.transformResultPoints(frame.possibleResultPoints, sourceData);
+            Message message = Message.obtain(resultHandler, R.id.zxing_possible_result_points, resultPoints);
+            messages.add(message);
+        }
+        if (rawResults.isEmpty() || resultHandler == null || imageRetention != BarcodeResult.ImageRetention.FULL_FRAME) {
+            // A BarcodeResult with the full frame keeps a reference to the SourceData, so we can
+            // only recycle the buffer if it is not used for a result. In the other case the buffer
+            // is left to the garbage collector, and the pool allocates a new one.
+            sourceData.release();
+        }
+        return messages;
+    }
+
+    /**
+     * Deliver the messages for a frame. Frames are finished in capture order, so this is also
+     * the order of delivery.
+     *
+     * Must be called while holding LOCK.
+     */
+    private void deliver(List<Message> messages) {
+        for (Message message : messages) {
+            if (!running || (stopAfterResult && resultDelivered)) {
+                // Stopped, or we already have our result.
+                message.recycle();
+                continue;
+            }
+            if (message.what == R.id.zxing_decode_succeeded || message.what == R.id.zxing_decode_multiple_succeeded) {
+                resultDelivered = true;
+            }
             message.sendToTarget();
         }
-        requestNextPreview();
+    }
+
+    /**
+     * Get the SourceData to keep with a result, according to the retention policy.
+     */
+    private SourceData retainImage(Result result, SourceData sourceData) {
+        switch (imageRetention) {
+            case NONE:
+                return sourceData.copyWithoutImage();
+            case BARCODE_REGION:
+                return sourceData.copyRegion(barcodeRegion(result, sourceData));
+            case FULL_FRAME:
+            default:
+                return sourceData;
+        }
+    }
+
+    /**
+     * The bounding box of the result points, padded to include the quiet zone, in display
+     * orientation. The full crop rectangle is used if there are no result points.
+     */
+    private static Rect barcodeRegion(Result result, SourceData sourceData) {
+        Rect crop = sourceData.getCropRect();
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null) {
+            return crop;
+        }
+
+        int scale = sourceData.getScalingFactor();
+        float left = Float.MAX_VALUE;
+        float top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE;
+        float bottom = -Float.MAX_VALUE;
+        for (ResultPoint point : points) {
+            if (point != null) {
+                float x = point.getX() * scale + crop.left;
+                float y = point.getY() * scale + crop.top;
+                left = Math.min(left, x);
+                top = Math.min(top, y);
+                right = Math.max(right, x);
+                bottom = Math.max(bottom, y);
+            }
+        }
+        if (left > right) {
+            return crop;
+        }
+
+        // Result points are typically inside the barcode (finder pattern centers, or the start
+        // and end of a 1D barcode), so pad generously.
+        int padding = (int) (Math.max(right - left, bottom - top) / 4) + 8;
+        return new Rect((int) left - padding, (int) top - padding,
+                (int) Math.ceil(right) + padding, (int) Math.ceil(bottom) + padding);
     }
 }
@@ -59,6 +59,32 @@ public class DecoratedBarcodeView extends FrameLayout {
         }
     }
 
+    private class WrappedMultiCallback extends WrappedCallback implements MultiBarcodeCallback {
+        private MultiBarcodeCallback delegate;
+
+        public WrappedMultiCallback(MultiBarcodeCallback delegate) {
+            super(delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void barcodeResults(List<BarcodeResult> results) {
+            delegate.barcodeResults(results);
+        }
+
+        @Override
+        public void barcodeResult(BarcodeResult result) {
+            delegate.barcodeResult(result);
+        }
+    }
+
+    private WrappedCallback wrap(BarcodeCallback callback) {
+        if (callback instanceof MultiBarcodeCallback) {
+            return new WrappedMultiCallback((MultiBarcodeCallback) callback);
+        }
+        return new WrappedCallback(callback);
+    }
+
     public DecoratedBarcodeView(Context context) {
         super(context);
         initialize();
@@ -161,8 +187,17 @@ public class DecoratedBarcodeView extends FrameLayout {
         MultiFormatReader reader = new MultiFormatReader();
         reader.setHints(decodeHints);
 
+        DefaultDecoderFactory decoderFactory = new DefaultDecoderFactory(decodeFormats, decodeHints, characterSet, scanType);
+        decoderFactory.setTryHarderSchedule(intent.getIntExtra(Intents.Scan.TRY_HARDER_INTERVAL, 0),
+                intent.getIntExtra(Intents.Scan.TRY_HARDER_AFTER_MISSES, 0));
+        if (intent.getBooleanExtra(Intents.Scan.LEARN_FORMATS, false)) {
+            FormatHitRates hitRates = new FormatHitRates();
+            hitRates.load(getContext().getSharedPreferences(FormatHitRates.PREFERENCES_NAME, Context.MODE_PRIVATE));
+            decoderFactory.setFormatHitRates(hitRates);
+        }
+
         barcodeView.setCameraSettings(settings);
-        barcodeView.setDecoderFactory(new DefaultDecoderFactory(decodeFormats, decodeHints, characterSet, scanType));
+        barcodeView.setDecoderFactory(decoderFactory);
     }
 
     public void setCameraSettings(CameraSettings cameraSettings) {
@@ -225,14 +260,14 @@ public class DecoratedBarcodeView extends FrameLayout {
      * @see BarcodeView#decodeSingle(BarcodeCallback)
      */
     public void decodeSingle(BarcodeCallback callback) {
-        barcodeView.decodeSingle(new WrappedCallback(callback));
+        barcodeView.decodeSingle(wrap(callback));
     }
 
     /**
      * @see BarcodeView#decodeContinuous(BarcodeCallback)
      */
     public void decodeContinuous(BarcodeCallback callback) {
-        barcodeView.decodeContinuous(new WrappedCallback(callback));
+        barcodeView.decodeContinuous(wrap(callback));
     }
 
     /**
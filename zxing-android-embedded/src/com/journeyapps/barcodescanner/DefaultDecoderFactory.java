@@ -10,18 +10,48 @@ import java.util.Map;
 
 /**
  * DecoderFactory that creates a MultiFormatReader with specified hints.
+ *
+ * The frame strategies each decode a frame in their own way, so at most one of them may be
+ * enabled: scanline decoding, multiple barcodes, tiling, a frame budget, a TRY_HARDER schedule,
+ * pyramid decoding and adaptive binarization. Enabling a second one throws an
+ * IllegalStateException from its setter.
+ *
+ * The scan type applies to any of them: with a plain reader the polarity is handled by the
+ * binarizer, as in InvertedDecoder, MixedDecoder and DualPolarityDecoder, and otherwise by a
+ * PolarityDecoder around the frame strategy. Format hit rates also apply to any of them: the
+ * HitRateDecoder only narrows the POSSIBLE_FORMATS hint of the decoders it creates.
+ *
+ * Scanline decoding only applies if all possible formats are 1D formats. Otherwise a plain
+ * reader is used.
  */
 public class DefaultDecoderFactory implements DecoderFactory {
+    private static final String SCANLINES = "scanline decoding";
+    private static final String MULTIPLE = "multiple barcodes";
+    private static final String TILES = "tiled decoding";
+    private static final String FRAME_BUDGET = "a frame budget";
+    private static final String TRY_HARDER_SCHEDULE = "a TRY_HARDER schedule";
+    private static final String PYRAMID = "pyramid decoding";
+    private static final String ADAPTIVE = "adaptive binarization";
+
     private Collection<BarcodeFormat> decodeFormats;
     private Map<DecodeHintType, ?> hints;
     private String characterSet;
     private int scanType;
+    private int minTiledBarcodeSize;
+    private boolean multiple;
+    private int scanlineCount;
+    private boolean angledScanlines;
+    private boolean adaptiveBinarizer;
+    private BinarizerStats binarizerStats;
+    private long frameBudget;
+    private FrameBudgetStats frameBudgetStats;
+    private int pyramidLevels;
+    private FormatHitRates formatHitRates;
+    private TryHarderSchedule tryHarderSchedule;
 
     public DefaultDecoderFactory() {
     }
 
-
-
     public DefaultDecoderFactory(Collection<BarcodeFormat> decodeFormats) {
         this.decodeFormats = decodeFormats;
     }
@@ -33,6 +63,230 @@ public class DefaultDecoderFactory implements DecoderFactory {
         this.scanType = scanType;
     }
 
+    public int getMinTiledBarcodeSize() {
+        return minTiledBarcodeSize;
+    }
+
+    /**
+     * Enable tiled decoding: the image is split into overlapping tiles, that are decoded in
+     * parallel. This helps to find small barcodes in a large crop rectangle.
+     *
+     * @param minBarcodeSize the minimum size of a barcode in pixels, or 0 to disable tiling
+     * @see TiledDecoder
+     */
+    public void setMinTiledBarcodeSize(int minBarcodeSize) {
+        if (minBarcodeSize > 0) {
+            checkFrameStrategy(TILES);
+        }
+        this.minTiledBarcodeSize = minBarcodeSize;
+    }
+
+    public boolean isMultiple() {
+        return multiple;
+    }
+
+    /**
+     * Decode all barcodes in a frame, instead of only the first one. Use together with a
+     * MultiBarcodeCallback.
+     *
+     * @param multiple true to decode all barcodes
+     * @see MultiDecoder
+     */
+    public void setMultiple(boolean multiple) {
+        if (multiple) {
+            checkFrameStrategy(MULTIPLE);
+        }
+        this.multiple = multiple;
+    }
+
+    public int getScanlineCount() {
+        return scanlineCount;
+    }
+
+    public boolean isAngledScanlines() {
+        return angledScanlines;
+    }
+
+    /**
+     * Use a fast path for 1D barcodes: sample individual scanlines instead of binarizing the full
+     * image. This is only used if all possible formats, from the decode formats or the
+     * POSSIBLE_FORMATS hint, are 1D formats, for example ScanOptions.ONE_D_CODE_TYPES or
+     * ScanOptions.PRODUCT_CODE_TYPES.
+     *
+     * @param scanlineCount the number of horizontal scanlines, or 0 to disable
+     * @param angled true to sample scanlines at +15 and -15 degrees as well
+     * @see ScanlineDecoder
+     */
+    public void setScanlineDecoding(int scanlineCount, boolean angled) {
+        if (scanlineCount > 0) {
+            checkFrameStrategy(SCANLINES);
+        }
+        this.scanlineCount = scanlineCount;
+        this.angledScanlines = angled;
+    }
+
+    public boolean isAdaptiveBinarizer() {
+        return adaptiveBinarizer;
+    }
+
+    /**
+     * Choose between HybridBinarizer and GlobalHistogramBinarizer per frame, based on which one
+     * recently decoded more barcodes. The decoders of all decoder threads learn from the same
+     * BinarizerStats.
+     *
+     * @param adaptiveBinarizer true to enable
+     * @see AdaptiveDecoder
+     */
+    public void setAdaptiveBinarizer(boolean adaptiveBinarizer) {
+        if (adaptiveBinarizer) {
+            checkFrameStrategy(ADAPTIVE);
+            this.binarizerStats = new BinarizerStats();
+        } else {
+            this.binarizerStats = null;
+        }
+        this.adaptiveBinarizer = adaptiveBinarizer;
+    }
+
+    /**
+     *
+     * @return the outcomes of the binarizers over all decoder threads, or null if adaptive
+     *         binarization is disabled
+     */
+    public BinarizerStats getBinarizerStats() {
+        return binarizerStats;
+    }
+
+    public long getFrameBudget() {
+        return frameBudget;
+    }
+
+    /**
+     * Abandon a frame once decoding it takes longer than a time budget, so that a single
+     * difficult frame doesn't delay the next frames.
+     *
+     * @param budgetMillis the time budget per frame in milliseconds, or 0 to disable
+     * @see TimeBudgetDecoder
+     */
+    public void setFrameBudget(long budgetMillis) {
+        if (budgetMillis > 0) {
+            checkFrameStrategy(FRAME_BUDGET);
+            this.frameBudgetStats = new FrameBudgetStats();
+        } else {
+            this.frameBudgetStats = null;
+        }
+        this.frameBudget = budgetMillis;
+    }
+
+    /**
+     *
+     * @return the frames decoded and abandoned by the decoders of all decoder threads, or null if
+     *         there is no frame budget
+     */
+    public FrameBudgetStats getFrameBudgetStats() {
+        return frameBudgetStats;
+    }
+
+    public int getPyramidLevels() {
+        return pyramidLevels;
+    }
+
+    /**
+     * Decode downscaled versions of each frame first, starting with the coarsest level, and only
+     * fall back to the full resolution if nothing is found. Large barcodes then decode at a
+     * fraction of the cost.
+     *
+     * @param levels the number of levels including the full resolution, for example 3 for full,
+     *               half and quarter resolution, or 0 to disable
+     * @see PyramidDecoder
+     */
+    public void setPyramidLevels(int levels) {
+        if (levels > 1) {
+            checkFrameStrategy(PYRAMID);
+        }
+        this.pyramidLevels = levels;
+    }
+
+    public FormatHitRates getFormatHitRates() {
+        return formatHitRates;
+    }
+
+    /**
+     * Learn which formats are scanned most often, and only try those in most frames, with
+     * periodic sweeps of all formats. Pass the same FormatHitRates to later factories, or save
+     * and load it with SharedPreferences, to keep what was learned.
+     *
+     * @param hitRates the counts of decoded formats, or null to disable
+     * @see HitRateDecoder
+     */
+    public void setFormatHitRates(FormatHitRates hitRates) {
+        this.formatHitRates = hitRates;
+    }
+
+    public int getTryHarderInterval() {
+        return tryHarderSchedule == null ? 0 : tryHarderSchedule.getInterval();
+    }
+
+    public int getTryHarderAfterMisses() {
+        return tryHarderSchedule == null ? 0 : tryHarderSchedule.getMissesBeforeEscalation();
+    }
+
+    /**
+     *
+     * @return the schedule shared by the decoders of all decoder threads, or null if disabled
+     */
+    public TryHarderSchedule getTryHarderSchedule() {
+        return tryHarderSchedule;
+    }
+
+    /**
+     * Decode most frames without TRY_HARDER, and escalate to TRY_HARDER periodically, or after a
+     * number of frames without a result. The frames and misses are counted over the decoders of
+     * all decoder threads.
+     *
+     * @param interval use TRY_HARDER for every interval-th frame, or 0 to only escalate after misses
+     * @param afterMisses use TRY_HARDER once after every this many consecutive frames without a
+     *                    result, or 0 to only escalate periodically. Set both to 0 to disable.
+     * @see CascadeDecoder
+     */
+    public void setTryHarderSchedule(int interval, int afterMisses) {
+        if (interval > 0 || afterMisses > 0) {
+            checkFrameStrategy(TRY_HARDER_SCHEDULE);
+            this.tryHarderSchedule = new TryHarderSchedule(interval, afterMisses);
+        } else {
+            this.tryHarderSchedule = null;
+        }
+    }
+
+    /**
+     *
+     * @return the enabled frame strategy, or null if none is enabled
+     */
+    private String getFrameStrategy() {
+        if (scanlineCount > 0) {
+            return SCANLINES;
+        } else if (multiple) {
+            return MULTIPLE;
+        } else if (minTiledBarcodeSize > 0) {
+            return TILES;
+        } else if (frameBudget > 0) {
+            return FRAME_BUDGET;
+        } else if (tryHarderSchedule != null) {
+            return TRY_HARDER_SCHEDULE;
+        } else if (pyramidLevels > 1) {
+            return PYRAMID;
+        } else if (adaptiveBinarizer) {
+            return ADAPTIVE;
+        }
+        return null;
+    }
+
+    private void checkFrameStrategy(String strategy) {
+        String enabled = getFrameStrategy();
+        if (enabled != null && !enabled.equals(strategy)) {
+            throw new IllegalStateException("Can't combine " + strategy + " with " + enabled);
+        }
+    }
+
     @Override
     public Decoder createDecoder(Map<DecodeHintType, ?> baseHints) {
         Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
@@ -51,22 +305,88 @@ public class DefaultDecoderFactory implements DecoderFactory {
             hints.put(DecodeHintType.CHARACTER_SET, characterSet);
         }
 
-        MultiFormatReader reader = new MultiFormatReader();
-        reader.setHints(hints);
+        if (formatHitRates != null) {
+            return new HitRateDecoder(hints, formatHitRates, HitRateDecoder.DEFAULT_SWEEP_INTERVAL, new DecoderFactory() {
+                @Override
+                public Decoder createDecoder(Map<DecodeHintType, ?> decoderHints) {
+                    return createStrategyDecoder(decoderHints);
+                }
+            });
+        }
+        return createStrategyDecoder(hints);
+    }
+
+    /**
+     *
+     * @param hints the merged hints
+     * @return a Decoder for the enabled frame strategy and the scan type
+     */
+    private Decoder createStrategyDecoder(Map<DecodeHintType, ?> hints) {
+        Decoder decoder = createFrameDecoder(hints);
+        if (decoder == null) {
+            MultiFormatReader reader = createReader(hints);
+            switch (scanType){
+                case 0:
+                    return new Decoder(reader);
+                case 1:
+                    return new InvertedDecoder(reader);
+                case 2:
+                    return new MixedDecoder(reader);
+                case 3:
+                    return new DualPolarityDecoder(reader);
+                default:
+                    return new Decoder(reader);
+            }
+        }
+
+        if (scanType != 0) {
+            decoder = new PolarityDecoder(decoder, scanType);
+        }
+        return decoder;
+    }
+
+    /**
+     *
+     * @param hints the merged hints
+     * @return a Decoder for the enabled frame strategy, or null to use a plain reader
+     */
+    private Decoder createFrameDecoder(Map<DecodeHintType, ?> hints) {
+        //noinspection unchecked
+        Collection<BarcodeFormat> possibleFormats = (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        if (scanlineCount > 0 && ScanlineDecoder.isOneDimensional(possibleFormats)) {
+            return new ScanlineDecoder(hints, scanlineCount, angledScanlines);
+        }
+
+        if (multiple) {
+            return new MultiDecoder(hints);
+        }
+
+        if (minTiledBarcodeSize > 0) {
+            return new TiledDecoder(hints, minTiledBarcodeSize);
+        }
+
+        if (frameBudget > 0) {
+            return new TimeBudgetDecoder(hints, frameBudget, frameBudgetStats);
+        }
 
-        switch (scanType){
-            case 0:
-                return new Decoder(reader);
-            case 1:
-                return new InvertedDecoder(reader);
-            case 2:
-                return new MixedDecoder(reader);
-            default:
-                return new Decoder(reader);
+        if (tryHarderSchedule != null) {
+            return new CascadeDecoder(hints, tryHarderSchedule);
+        }
 
+        if (pyramidLevels > 1) {
+            return new PyramidDecoder(createReader(hints), pyramidLevels);
+        }
 
+        if (adaptiveBinarizer) {
+            return new AdaptiveDecoder(createReader(hints), binarizerStats);
         }
 
+        return null;
+    }
 
+    private static MultiFormatReader createReader(Map<DecodeHintType, ?> hints) {
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(hints);
+        return reader;
     }
 }
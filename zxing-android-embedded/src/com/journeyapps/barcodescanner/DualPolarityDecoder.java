@@ -0,0 +1,39 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * Decoder that scans both normal and inverted barcodes in every frame.
+ *
+ * The image is binarized once. If no barcode is found, the same black matrix is inverted and
+ * scanned again, instead of binarizing an inverted copy of the image like InvertedDecoder and
+ * MixedDecoder. This makes scanning both polarities only slightly more expensive than scanning
+ * normal barcodes only.
+ */
+public class DualPolarityDecoder extends Decoder {
+
+    /**
+     * Create a new Decoder with the specified Reader.
+     * <p/>
+     * It is recommended to use an instance of MultiFormatReader in most cases.
+     *
+     * @param reader the reader
+     */
+    public DualPolarityDecoder(Reader reader) {
+        super(reader);
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        CachingBinarizer binarizer = new CachingBinarizer(new HybridBinarizer(source));
+        Result result = decode(new BinaryBitmap(binarizer));
+        if (result == null) {
+            result = decode(new BinaryBitmap(new InvertedBinarizer(binarizer)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,155 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drops results for barcodes that were already reported recently.
+ *
+ * In continuous mode, the same barcode is typically decoded multiple times per second. This keeps
+ * the barcodes reported in the last ttl milliseconds, keyed by format and text (or raw bytes if
+ * there is no text), and drops further results for them on the decoder thread. Once the ttl has
+ * passed since a barcode was reported, it is reported again.
+ *
+ * The cache is bounded: when it is full, the least recently seen barcode is evicted.
+ *
+ * Times are taken from Result.getTimestamp().
+ */
+public class DuplicateFilter implements ResultFilter {
+    public static final long DEFAULT_TTL = 3000;
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private static class Entry {
+        private long reported;
+        private int suppressed;
+    }
+
+    private final long ttl;
+    private final Object LOCK = new Object();
+    // Guarded by LOCK. In access order, so the eldest entry is the least recently seen.
+    private final LinkedHashMap<String, Entry> cache;
+    private long suppressedCount = 0;
+
+    public DuplicateFilter() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     *
+     * @param ttl the time after which a barcode is reported again, in milliseconds
+     * @param maxSize the maximum number of barcodes to remember
+     */
+    public DuplicateFilter(long ttl, final int maxSize) {
+        if (ttl < 0 || maxSize < 1) {
+            throw new IllegalArgumentException("Invalid ttl or maximum size");
+        }
+        this.ttl = ttl;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the cache key of a result.
+     *
+     * @param result the result
+     * @return the format and text, or the format and raw bytes if there is no text
+     */
+    static String key(Result result) {
+        return key(result.getBarcodeFormat(), result.getText(), result.getRawBytes());
+    }
+
+    private static String key(BarcodeFormat format, String text, byte[] rawBytes) {
+        StringBuilder builder = new StringBuilder().append(format).append(':');
+        if (text != null) {
+            builder.append('T').append(text);
+        } else if (rawBytes != null) {
+            builder.append('B');
+            for (byte b : rawBytes) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public List<Result> filter(List<Result> results) {
+        List<Result> filtered = new ArrayList<>(results.size());
+        synchronized (LOCK) {
+            for (Result result : results) {
+                long now = result.getTimestamp();
+                String key = key(result);
+                Entry entry = cache.get(key);
+                if (entry != null && now - entry.reported < ttl) {
+                    entry.suppressed++;
+                    suppressedCount++;
+                    continue;
+                }
+                if (entry == null) {
+                    entry = new Entry();
+                    cache.put(key, entry);
+                }
+                entry.reported = now;
+                filtered.add(result);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Get the number of duplicates dropped for a barcode, while it is still in the cache.
+     *
+     * @param result a result for the barcode
+     * @return the number of duplicates dropped, or 0 if the barcode is not in the cache
+     */
+    public int getSuppressedCount(Result result) {
+        String key = key(result);
+        synchronized (LOCK) {
+            // Not cache.get(), which would count as an access.
+            for (Map.Entry<String, Entry> entry : cache.entrySet()) {
+                if (entry.getKey().equals(key)) {
+                    return entry.getValue().suppressed;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     *
+     * @return the total number of duplicates dropped
+     */
+    public long getSuppressedCount() {
+        synchronized (LOCK) {
+            return suppressedCount;
+        }
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Forget all barcodes, so that they are reported again.
+     */
+    public void clear() {
+        synchronized (LOCK) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "DuplicateFilter{ttl=" + ttl + ", size=" + cache.size() + ", suppressed=" + suppressedCount + '}';
+        }
+    }
+}
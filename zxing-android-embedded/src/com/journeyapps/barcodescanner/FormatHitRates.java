@@ -0,0 +1,197 @@
+package com.journeyapps.barcodescanner;
+
+import android.content.SharedPreferences;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The number of barcodes decoded per format, to decode the common formats first.
+ *
+ * One instance usually collects the counts of all decoders. The counts can be saved to
+ * SharedPreferences, so that a new session starts with the counts learned in the previous ones.
+ *
+ * @see HitRateDecoder
+ */
+public class FormatHitRates {
+    public static final float DEFAULT_COVERAGE = 0.95f;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    /**
+     * The name of the SharedPreferences that CaptureManager saves the counts to, with
+     * Intents.Scan.LEARN_FORMATS.
+     */
+    public static final String PREFERENCES_NAME = "zxing_format_hit_rates";
+
+    private static final String PREFERENCE_PREFIX = "zxing_format_hits_";
+
+    // When the total exceeds this, all counts are halved, so that recent scans weigh more.
+    private static final int MAX_TOTAL = 1000;
+
+    private final float coverage;
+    private final int minSamples;
+    private final Object LOCK = new Object();
+    // Guarded by LOCK.
+    private final Map<BarcodeFormat, Integer> counts = new EnumMap<>(BarcodeFormat.class);
+    private int total = 0;
+    private BarcodeFormat lastFormat;
+    private String lastText;
+
+    public FormatHitRates() {
+        this(DEFAULT_COVERAGE, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     *
+     * @param coverage the fraction of decoded barcodes the likely formats should cover
+     * @param minSamples the number of decoded barcodes before any formats are considered likely
+     */
+    public FormatHitRates(float coverage, int minSamples) {
+        this.coverage = coverage;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Record a decoded barcode, unless it is the same barcode as the last one recorded. A barcode
+     * is usually decoded in many consecutive frames, but is counted once.
+     *
+     * @param result the decoded barcode
+     */
+    public void record(Result result) {
+        synchronized (LOCK) {
+            if (result.getBarcodeFormat() == lastFormat && result.getText().equals(lastText)) {
+                return;
+            }
+            lastFormat = result.getBarcodeFormat();
+            lastText = result.getText();
+            record(lastFormat);
+        }
+    }
+
+    /**
+     * Record a decoded barcode.
+     *
+     * @param format the format of the barcode
+     */
+    public void record(BarcodeFormat format) {
+        synchronized (LOCK) {
+            Integer count = counts.get(format);
+            counts.put(format, count == null ? 1 : count + 1);
+            total++;
+            if (total > MAX_TOTAL) {
+                total = 0;
+                for (Map.Entry<BarcodeFormat, Integer> entry : counts.entrySet()) {
+                    entry.setValue(entry.getValue() / 2);
+                    total += entry.getValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the formats that cover most decoded barcodes.
+     *
+     * @param allowed the formats to choose from, or null for any format
+     * @return the most common formats covering the configured fraction of decoded barcodes, or
+     * null if there are not enough samples yet
+     */
+    public Set<BarcodeFormat> getLikelyFormats(Collection<BarcodeFormat> allowed) {
+        synchronized (LOCK) {
+            List<Map.Entry<BarcodeFormat, Integer>> entries = new ArrayList<>();
+            int allowedTotal = 0;
+            for (Map.Entry<BarcodeFormat, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > 0 && (allowed == null || allowed.contains(entry.getKey()))) {
+                    entries.add(entry);
+                    allowedTotal += entry.getValue();
+                }
+            }
+            if (allowedTotal < minSamples) {
+                return null;
+            }
+            Collections.sort(entries, (a, b) -> b.getValue() - a.getValue());
+
+            Set<BarcodeFormat> likely = EnumSet.noneOf(BarcodeFormat.class);
+            int covered = 0;
+            for (Map.Entry<BarcodeFormat, Integer> entry : entries) {
+                likely.add(entry.getKey());
+                covered += entry.getValue();
+                if (covered >= coverage * allowedTotal) {
+                    break;
+                }
+            }
+            return likely;
+        }
+    }
+
+    /**
+     *
+     * @param format the format
+     * @return the (decayed) number of decoded barcodes of the format
+     */
+    public int getCount(BarcodeFormat format) {
+        synchronized (LOCK) {
+            Integer count = counts.get(format);
+            return count == null ? 0 : count;
+        }
+    }
+
+    /**
+     * Set the count of a format, for example from a previous session.
+     *
+     * @param format the format
+     * @param count the number of decoded barcodes
+     */
+    public void setCount(BarcodeFormat format, int count) {
+        synchronized (LOCK) {
+            total += count - getCount(format);
+            counts.put(format, count);
+        }
+    }
+
+    /**
+     * Save the counts. Call apply() or commit() on the editor afterwards.
+     *
+     * @param editor the editor of the preferences to save to
+     */
+    public void save(SharedPreferences.Editor editor) {
+        synchronized (LOCK) {
+            for (BarcodeFormat format : BarcodeFormat.values()) {
+                Integer count = counts.get(format);
+                if (count == null || count == 0) {
+                    editor.remove(PREFERENCE_PREFIX + format.name());
+                } else {
+                    editor.putInt(PREFERENCE_PREFIX + format.name(), count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load counts saved with save().
+     *
+     * @param preferences the preferences to load from
+     */
+    public void load(SharedPreferences preferences) {
+        synchronized (LOCK) {
+            for (BarcodeFormat format : BarcodeFormat.values()) {
+                setCount(format, preferences.getInt(PREFERENCE_PREFIX + format.name(), 0));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "FormatHitRates{counts=" + counts + ", total=" + total + '}';
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.journeyapps.barcodescanner;
+
+/**
+ * The number of frames decoded and abandoned by one or more TimeBudgetDecoders.
+ *
+ * @see DefaultDecoderFactory#getFrameBudgetStats()
+ */
+public class FrameBudgetStats {
+    private final Object LOCK = new Object();
+    // Guarded by LOCK.
+    private long frameCount = 0;
+    private long abandonedFrames = 0;
+
+    /**
+     * Record a frame that TimeBudgetDecoder started to decode.
+     */
+    public void recordFrame() {
+        synchronized (LOCK) {
+            frameCount++;
+        }
+    }
+
+    /**
+     * Record a frame that was abandoned because it exceeded the budget.
+     */
+    public void recordAbandoned() {
+        synchronized (LOCK) {
+            abandonedFrames++;
+        }
+    }
+
+    /**
+     *
+     * @return the number of frames decoded
+     */
+    public long getFrameCount() {
+        synchronized (LOCK) {
+            return frameCount;
+        }
+    }
+
+    /**
+     *
+     * @return the number of frames abandoned because they exceeded the budget
+     */
+    public long getAbandonedFrameCount() {
+        synchronized (LOCK) {
+            return abandonedFrames;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "FrameBudgetStats{frameCount=" + frameCount + ", abandonedFrames=" + abandonedFrames + '}';
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A check before decoding a frame, to skip frames that are unlikely to decode, for example
+ * because they are blurry.
+ *
+ * accept() is called by the decoder thread that takes the frame, so with multiple decoder threads
+ * it may be called for several frames at once. decodeFinished() is called one frame at a time, in
+ * capture order, but not always from the same thread.
+ *
+ * @see BarcodeView#setFrameGate(FrameGate)
+ * @see SharpnessGate
+ * @see StaticSceneGate
+ * @see CompositeFrameGate
+ */
+public interface FrameGate {
+    /**
+     * Check whether a frame should be decoded.
+     *
+     * This is called on a decoder thread, before decoding. It should be cheap compared to decoding.
+     *
+     * @param source the cropped and scaled frame, as passed to the Decoder
+     * @return true to decode the frame, false to skip it
+     */
+    boolean accept(LuminanceSource source);
+
+    /**
+     * Called after decoding a frame that was accepted.
+     *
+     * This is a default method and can be omitted by the implementing class.
+     *
+     * @param success true if a barcode was found
+     */
+    default void decodeFinished(boolean success) {
+    }
+}
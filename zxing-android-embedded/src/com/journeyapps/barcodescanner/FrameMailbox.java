@@ -0,0 +1,72 @@
+package com.journeyapps.barcodescanner;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single-slot mailbox handing preview frames from the camera thread to the decoder threads.
+ *
+ * A newer frame replaces an older frame that was not taken yet, so that decoding always starts
+ * with the latest frame. Replaced and expired frames are released, so that their buffers can be
+ * reused.
+ *
+ * This is lock-free, and safe to use from multiple threads.
+ */
+public class FrameMailbox {
+    private final AtomicReference<SourceData> slot = new AtomicReference<>();
+
+    /**
+     * Put a frame in the mailbox, replacing any frame that was not taken yet.
+     *
+     * @param frame the frame
+     * @return true if an older frame was replaced
+     */
+    public boolean put(SourceData frame) {
+        SourceData old = slot.getAndSet(frame);
+        if (old != null) {
+            old.release();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take the frame from the mailbox.
+     *
+     * @return the frame, or null if the mailbox is empty
+     */
+    public SourceData take() {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * Take the frame from the mailbox, if it is not too old. An expired frame is released.
+     *
+     * Frames without a timestamp never expire.
+     *
+     * @param now the current time, in the time base of SourceData.getTimestamp()
+     * @param maxAge the maximum age in milliseconds, or 0 for no limit
+     * @return the frame, or null if the mailbox is empty or the frame expired
+     */
+    public SourceData take(long now, long maxAge) {
+        SourceData frame = take();
+        if (frame != null && maxAge > 0 && frame.getTimestamp() != 0 && now - frame.getTimestamp() > maxAge) {
+            frame.release();
+            return null;
+        }
+        return frame;
+    }
+
+    public boolean isEmpty() {
+        return slot.get() == null;
+    }
+
+    /**
+     * Release any frame in the mailbox.
+     */
+    public void clear() {
+        SourceData frame = take();
+        if (frame != null) {
+            frame.release();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decoder that only tries the formats that were decoded most often, except in periodic full
+ * sweeps.
+ *
+ * MultiFormatReader tries each reader in a fixed order, and every reader that doesn't find a
+ * barcode costs a full detector pass. If most barcodes scanned are of a single format, that
+ * format is the only one tried in most frames. Every sweepInterval frames all formats are tried,
+ * so that barcodes of other formats are still found, and counted.
+ *
+ * Until FormatHitRates has enough samples, all formats are tried in every frame.
+ *
+ * The frames are decoded by Decoders from a DecoderFactory, one for all formats and one for the
+ * likely formats, which only differ in the POSSIBLE_FORMATS hint. This way the narrowed formats
+ * apply to any other decoding strategy.
+ */
+public class HitRateDecoder extends Decoder {
+    public static final int DEFAULT_SWEEP_INTERVAL = 5;
+
+    private final Map<DecodeHintType, ?> hints;
+    private final Collection<BarcodeFormat> formats;
+    private final FormatHitRates hitRates;
+    private final int sweepInterval;
+    private final DecoderFactory factory;
+    private final Decoder allDecoder;
+    private Decoder likelyDecoder;
+    private Set<BarcodeFormat> likelyFormats;
+    private Decoder currentDecoder;
+    private long frameCount = 0;
+
+    /**
+     * Create a HitRateDecoder that decodes with a MultiFormatReader.
+     *
+     * @param hints the hints, as for MultiFormatReader
+     * @param hitRates the counts of decoded formats, possibly shared with other decoders
+     * @param sweepInterval try all formats once every this many frames, at least 1
+     */
+    public HitRateDecoder(Map<DecodeHintType, ?> hints, FormatHitRates hitRates, int sweepInterval) {
+        this(hints, hitRates, sweepInterval, new DecoderFactory() {
+            @Override
+            public Decoder createDecoder(Map<DecodeHintType, ?> decoderHints) {
+                MultiFormatReader reader = new MultiFormatReader();
+                reader.setHints(decoderHints);
+                return new Decoder(reader);
+            }
+        });
+    }
+
+    /**
+     *
+     * @param hints the hints, as for MultiFormatReader
+     * @param hitRates the counts of decoded formats, possibly shared with other decoders
+     * @param sweepInterval try all formats once every this many frames, at least 1
+     * @param factory creates the decoders, using the given hints as they are
+     */
+    @SuppressWarnings("unchecked")
+    public HitRateDecoder(Map<DecodeHintType, ?> hints, FormatHitRates hitRates, int sweepInterval, DecoderFactory factory) {
+        super(null);
+        if (sweepInterval < 1) {
+            throw new IllegalArgumentException("sweepInterval must be at least 1");
+        }
+        this.hints = hints;
+        this.formats = (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        this.hitRates = hitRates;
+        this.sweepInterval = sweepInterval;
+        this.factory = factory;
+        this.allDecoder = factory.createDecoder(hints);
+        this.currentDecoder = allDecoder;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        currentDecoder = nextDecoder();
+        Result result = currentDecoder.decode(source);
+        if (result != null) {
+            hitRates.record(result);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        currentDecoder = nextDecoder();
+        List<Result> results = currentDecoder.decodeMultiple(source);
+        for (Result result : results) {
+            hitRates.record(result);
+        }
+        return results;
+    }
+
+    /**
+     * Choose the decoder for the next frame.
+     *
+     * @return the decoder of all formats, or of the likely formats
+     */
+    Decoder nextDecoder() {
+        frameCount++;
+        Set<BarcodeFormat> likely = hitRates.getLikelyFormats(formats);
+        if (likely == null || frameCount % sweepInterval == 0) {
+            return allDecoder;
+        }
+        if (!likely.equals(likelyFormats)) {
+            // Only changes when the learned counts change the likely formats, not per frame.
+            Map<DecodeHintType, Object> likelyHints = new EnumMap<>(DecodeHintType.class);
+            likelyHints.putAll(hints);
+            likelyHints.put(DecodeHintType.POSSIBLE_FORMATS, likely);
+            likelyDecoder = factory.createDecoder(likelyHints);
+            likelyFormats = likely;
+        }
+        return likelyDecoder;
+    }
+
+    @Override
+    public List<ResultPoint> getPossibleResultPoints() {
+        return currentDecoder.getPossibleResultPoints();
+    }
+
+    @Override
+    public void foundPossibleResultPoint(ResultPoint point) {
+        // The points are found by the current decoder's reader, which may need to transform them.
+        currentDecoder.foundPossibleResultPoint(point);
+    }
+
+    /**
+     *
+     * @return the formats tried in most frames, or null if all formats are tried
+     */
+    public Set<BarcodeFormat> getLikelyFormats() {
+        return hitRates.getLikelyFormats(formats);
+    }
+
+    public FormatHitRates getHitRates() {
+        return hitRates;
+    }
+}
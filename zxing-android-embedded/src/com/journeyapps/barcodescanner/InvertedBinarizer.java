@@ -0,0 +1,74 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Binarizer that inverts the output of another binarizer, instead of binarizing an inverted
+ * LuminanceSource.
+ *
+ * The bits are inverted a word at a time, which is much cheaper than thresholding the image
+ * again. Combine with CachingBinarizer to scan both polarities with a single binarization pass.
+ */
+public class InvertedBinarizer extends Binarizer {
+    private final Binarizer binarizer;
+
+    public InvertedBinarizer(Binarizer binarizer) {
+        super(binarizer.getLuminanceSource().invert());
+        this.binarizer = binarizer;
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        row = binarizer.getBlackRow(y, row);
+        invert(row, getWidth());
+        return row;
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        // BitMatrix doesn't expose its words, so each row is read once, inverted in place in the
+        // row's backing array, and written once. The source matrix is not cloned first.
+        BitMatrix source = binarizer.getBlackMatrix();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BitMatrix matrix = new BitMatrix(width, height);
+        BitArray row = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            row = source.getRow(y, row);
+            invert(row, width);
+            matrix.setRow(y, row);
+        }
+        return matrix;
+    }
+
+    /**
+     * Invert the first width bits of a row, and clear the bits after it.
+     *
+     * @param row the row
+     * @param width the number of bits to invert
+     */
+    static void invert(BitArray row, int width) {
+        int[] bits = row.getBitArray();
+        int fullWords = width / 32;
+        for (int i = 0; i < fullWords; i++) {
+            bits[i] = ~bits[i];
+        }
+        int remainder = width % 32;
+        if (remainder != 0) {
+            bits[fullWords] = ~bits[fullWords] & ((1 << remainder) - 1);
+            fullWords++;
+        }
+        for (int i = fullWords; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new InvertedBinarizer(binarizer.createBinarizer(source.invert()));
+    }
+}
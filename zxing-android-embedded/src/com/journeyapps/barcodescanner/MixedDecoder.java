@@ -3,13 +3,20 @@ package com.journeyapps.barcodescanner;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.Reader;
+import com.google.zxing.Result;
 import com.google.zxing.common.HybridBinarizer;
 
 /**
- * Decoder that performs alternating scans in normal mode and inverted mode.
+ * Decoder that performs scans in both normal mode and inverted mode.
+ *
+ * Instead of alternating blindly, the polarity that produced the most recent result is scanned
+ * 7 out of 8 frames, and the other polarity on the remaining frame. Before the first result, the
+ * likely polarity is estimated from the luminance of the image: normal barcodes are mostly on a
+ * light background, inverted barcodes on a dark background.
  */
 public class MixedDecoder extends Decoder {
-    private boolean isInverted = true;
+    private final PolaritySchedule schedule = new PolaritySchedule();
+    private boolean isInverted = false;
 
     /**
      * Create a new Decoder with the specified Reader.
@@ -22,6 +29,15 @@ public class MixedDecoder extends Decoder {
         super(reader);
     }
 
+    @Override
+    public Result decode(LuminanceSource source) {
+        Result result = super.decode(source);
+        if (result != null) {
+            schedule.recordResult(isInverted);
+        }
+        return result;
+    }
+
     /**
      * Given an image source, convert to a binary bitmap.
      *
@@ -31,13 +47,19 @@ public class MixedDecoder extends Decoder {
      * @return a BinaryBitmap
      */
     protected BinaryBitmap toBitmap(LuminanceSource source) {
+        isInverted = schedule.nextInverted(source);
         if (isInverted) {
-            isInverted = false;
             return new BinaryBitmap(new HybridBinarizer(source.invert()));
         } else {
-            isInverted = true;
             return new BinaryBitmap(new HybridBinarizer(source));
         }
     }
 
+    /**
+     *
+     * @return the polarity of the last result, or null if there was no result yet
+     */
+    public Boolean getInvertedPreferred() {
+        return schedule.getInvertedPreferred();
+    }
 }
@@ -0,0 +1,31 @@
+package com.journeyapps.barcodescanner;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Callback that is notified with all barcodes scanned in a single frame.
+ *
+ * Pass this to BarcodeView.decodeContinuous() or BarcodeView.decodeSingle(), typically together
+ * with a MultiDecoder. With other decoders, the list contains a single result.
+ *
+ * @see MultiDecoder
+ */
+public interface MultiBarcodeCallback extends BarcodeCallback {
+    /**
+     * Barcodes were successfully scanned in a frame.
+     *
+     * @param results the results, in the order they were found. Never empty.
+     */
+    void barcodeResults(List<BarcodeResult> results);
+
+    /**
+     * Single barcode was successfully scanned. This delegates to barcodeResults().
+     *
+     * @param result the result
+     */
+    @Override
+    default void barcodeResult(BarcodeResult result) {
+        barcodeResults(Collections.singletonList(result));
+    }
+}
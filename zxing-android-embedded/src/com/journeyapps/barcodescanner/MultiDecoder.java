@@ -0,0 +1,142 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decoder that finds all barcodes in an image, instead of only the first one.
+ *
+ * QR codes are found with QRCodeMultiReader, which detects multiple sets of finder patterns. Other
+ * formats are found with GenericMultipleBarcodeReader, which repeatedly decodes the regions around
+ * the barcodes found so far.
+ *
+ * Use with a MultiBarcodeCallback to receive all results from a frame at once.
+ */
+public class MultiDecoder extends Decoder {
+    private final Map<DecodeHintType, ?> hints;
+    private final GenericMultipleBarcodeReader genericReader;
+    private final QRCodeMultiReader qrCodeReader;
+
+    /**
+     * MultiFormatReader.decode() resets the hints on every call, which is slow. This uses
+     * decodeWithState() instead, with the hints set once.
+     */
+    private static class StatefulReader implements Reader {
+        private final MultiFormatReader reader;
+
+        StatefulReader(MultiFormatReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Result decode(BinaryBitmap image) throws NotFoundException {
+            return reader.decodeWithState(image);
+        }
+
+        @Override
+        public Result decode(BinaryBitmap image, Map<DecodeHintType, ?> hints) throws NotFoundException {
+            return reader.decodeWithState(image);
+        }
+
+        @Override
+        public void reset() {
+            reader.reset();
+        }
+    }
+
+    /**
+     * Create a new MultiDecoder.
+     *
+     * @param hints the hints, as for MultiFormatReader
+     */
+    public MultiDecoder(Map<DecodeHintType, ?> hints) {
+        this(createReader(hints), hints);
+    }
+
+    private MultiDecoder(MultiFormatReader reader, Map<DecodeHintType, ?> hints) {
+        super(reader);
+        this.hints = hints;
+        this.genericReader = new GenericMultipleBarcodeReader(new StatefulReader(reader));
+        this.qrCodeReader = isQRCodeEnabled(hints) ? new QRCodeMultiReader() : null;
+    }
+
+    private static MultiFormatReader createReader(Map<DecodeHintType, ?> hints) {
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(hints);
+        return reader;
+    }
+
+    private static boolean isQRCodeEnabled(Map<DecodeHintType, ?> hints) {
+        Object formats = hints == null ? null : hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        return formats == null || ((Collection<?>) formats).contains(BarcodeFormat.QR_CODE);
+    }
+
+    /**
+     * Decode the first barcode found in the image.
+     *
+     * @param source the image source
+     * @return a Result or null
+     */
+    @Override
+    public Result decode(LuminanceSource source) {
+        List<Result> results = decodeMultiple(source);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        return decodeMultiple(toBitmap(source));
+    }
+
+    /**
+     * Decode all barcodes in a binary bitmap.
+     *
+     * @param bitmap the binary bitmap
+     * @return the results, possibly empty
+     */
+    protected List<Result> decodeMultiple(BinaryBitmap bitmap) {
+        clearPossibleResultPoints();
+        // Results are keyed by format and text, since both readers may find the same QR code.
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (qrCodeReader != null) {
+            try {
+                add(results, qrCodeReader.decodeMultiple(bitmap, hints));
+            } catch (Exception e) {
+                // No QR codes found
+            } finally {
+                qrCodeReader.reset();
+            }
+        }
+        try {
+            add(results, genericReader.decodeMultiple(bitmap));
+        } catch (Exception e) {
+            // No barcodes found
+        } finally {
+            getReader().reset();
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    private static void add(Map<String, Result> results, Result[] found) {
+        for (Result result : found) {
+            String key = result.getBarcodeFormat() + ":" + result.getText();
+            if (!results.containsKey(key)) {
+                results.put(key, result);
+            }
+        }
+    }
+}
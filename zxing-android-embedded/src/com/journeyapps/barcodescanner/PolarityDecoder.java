@@ -0,0 +1,111 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.client.android.Intents;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decoder that applies a scan type to another Decoder, by passing it an inverted view of the
+ * image where needed. The other decoder binarizes the inverted view like any other image, so that
+ * for example TiledDecoder or CascadeDecoder can scan inverted barcodes.
+ *
+ * With Intents.Scan.MIXED_SCAN, the polarity of each frame is chosen the same way as in
+ * MixedDecoder. With Intents.Scan.DUAL_SCAN, the inverted image is decoded if nothing was found in
+ * the normal image.
+ *
+ * For a plain reader, InvertedDecoder, MixedDecoder and DualPolarityDecoder are cheaper.
+ */
+public class PolarityDecoder extends Decoder {
+    private final Decoder decoder;
+    private final int scanType;
+    private final PolaritySchedule schedule = new PolaritySchedule();
+
+    /**
+     *
+     * @param decoder the decoder to pass the normal or inverted image to
+     * @param scanType one of the Intents.Scan scan types
+     */
+    public PolarityDecoder(Decoder decoder, int scanType) {
+        super(null);
+        this.decoder = decoder;
+        this.scanType = scanType;
+    }
+
+    public Decoder getDecoder() {
+        return decoder;
+    }
+
+    public int getScanType() {
+        return scanType;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        List<Result> results = decode(source, false);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        return decode(source, true);
+    }
+
+    private List<Result> decode(LuminanceSource source, boolean multiple) {
+        switch (scanType) {
+            case Intents.Scan.INVERTED_SCAN:
+                return decodePolarity(source.invert(), multiple);
+            case Intents.Scan.MIXED_SCAN: {
+                boolean inverted = schedule.nextInverted(source);
+                List<Result> results = decodePolarity(inverted ? source.invert() : source, multiple);
+                if (!results.isEmpty()) {
+                    schedule.recordResult(inverted);
+                }
+                return results;
+            }
+            case Intents.Scan.DUAL_SCAN: {
+                List<Result> results = decodePolarity(source, multiple);
+                if (results.isEmpty()) {
+                    results = decodePolarity(source.invert(), multiple);
+                }
+                return results;
+            }
+            default:
+                return decodePolarity(source, multiple);
+        }
+    }
+
+    private List<Result> decodePolarity(LuminanceSource source, boolean multiple) {
+        if (multiple) {
+            return decoder.decodeMultiple(source);
+        }
+        Result result = decoder.decode(source);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(result);
+    }
+
+    /**
+     *
+     * @return with Intents.Scan.MIXED_SCAN, the polarity of the last result, or null if there was
+     *         no result yet
+     */
+    public Boolean getInvertedPreferred() {
+        return schedule.getInvertedPreferred();
+    }
+
+    @Override
+    public List<ResultPoint> getPossibleResultPoints() {
+        return decoder.getPossibleResultPoints();
+    }
+
+    @Override
+    public void foundPossibleResultPoint(ResultPoint point) {
+        // The points are found by the other decoder's reader, which may need to transform them.
+        decoder.foundPossibleResultPoint(point);
+    }
+}
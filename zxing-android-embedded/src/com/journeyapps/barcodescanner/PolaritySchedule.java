@@ -0,0 +1,84 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Chooses the polarity to scan in each frame, for MixedDecoder and PolarityDecoder.
+ *
+ * Not thread-safe: each decoder has its own schedule.
+ */
+class PolaritySchedule {
+    // The preferred polarity is used for all but one frame out of this many.
+    private static final int SCHEDULE_LENGTH = 8;
+
+    // Number of rows and columns sampled to estimate the polarity.
+    private static final int ESTIMATE_SAMPLES = 16;
+
+    // Polarity of the last result, or null if there is no result yet.
+    private Boolean invertedPreferred = null;
+    private int frameCount = 0;
+
+    /**
+     *
+     * @param source the image source of the next frame
+     * @return true to scan the next frame inverted
+     */
+    boolean nextInverted(LuminanceSource source) {
+        boolean preferred = invertedPreferred != null ? invertedPreferred : estimateInverted(source);
+        frameCount++;
+        return (frameCount % SCHEDULE_LENGTH == 0) != preferred;
+    }
+
+    /**
+     * Prefer the polarity of a result.
+     *
+     * @param inverted true if the result was found in the inverted image
+     */
+    void recordResult(boolean inverted) {
+        invertedPreferred = inverted;
+    }
+
+    Boolean getInvertedPreferred() {
+        return invertedPreferred;
+    }
+
+    /**
+     * Estimate whether the image likely contains an inverted barcode, from a sparse sample of
+     * luminance values. The image is considered inverted if most samples are closer to the
+     * darkest sample than to the lightest sample.
+     *
+     * @param source the image source
+     * @return true if the image is likely inverted
+     */
+    static boolean estimateInverted(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int rows = Math.min(ESTIMATE_SAMPLES, height);
+        int columnStep = Math.max(1, width / ESTIMATE_SAMPLES);
+        int[] histogram = new int[256];
+        int min = 255;
+        int max = 0;
+        byte[] row = null;
+        for (int i = 0; i < rows; i++) {
+            row = source.getRow((2 * i + 1) * height / (2 * rows), row);
+            for (int x = columnStep / 2; x < width; x += columnStep) {
+                int luminance = row[x] & 0xff;
+                histogram[luminance]++;
+                min = Math.min(min, luminance);
+                max = Math.max(max, luminance);
+            }
+        }
+
+        int threshold = (min + max) / 2;
+        int dark = 0;
+        int light = 0;
+        for (int i = min; i <= max; i++) {
+            if (i <= threshold) {
+                dark += histogram[i];
+            } else {
+                light += histogram[i];
+            }
+        }
+        return dark > light;
+    }
+}
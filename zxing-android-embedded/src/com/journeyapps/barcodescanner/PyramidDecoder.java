@@ -0,0 +1,179 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.List;
+
+/**
+ * Decoder that tries downscaled versions of the image before the full resolution.
+ *
+ * Each frame is reduced to a pyramid of levels, each half the width and height of the previous
+ * one, by averaging blocks of 2x2 pixels. Large barcodes decode at a coarse level at a fraction of
+ * the cost. The decoder starts at the coarsest level, and moves to the next finer level only if
+ * nothing was found. The level of the last success is tried first on the next frame, followed by
+ * the finer levels, then the coarser ones.
+ *
+ * Levels smaller than MIN_LEVEL_SIZE are skipped. Result points are scaled back to the
+ * coordinates of the full resolution image.
+ */
+public class PyramidDecoder extends Decoder {
+    public static final int DEFAULT_LEVELS = 3;
+
+    /**
+     * The minimum width and height of a downscaled level, in pixels.
+     */
+    public static final int MIN_LEVEL_SIZE = 80;
+
+    private final int levelCount;
+    private final byte[][] buffers;
+    private volatile int preferredLevel;
+    // The scale factor of the level being decoded, for possible result points.
+    private int currentScale = 1;
+
+    /**
+     * Create a PyramidDecoder with full, half and quarter resolution levels.
+     *
+     * @param reader the reader
+     */
+    public PyramidDecoder(Reader reader) {
+        this(reader, DEFAULT_LEVELS);
+    }
+
+    /**
+     *
+     * @param reader the reader
+     * @param levels the number of levels, including the full resolution
+     */
+    public PyramidDecoder(Reader reader, int levels) {
+        super(reader);
+        if (levels < 1) {
+            throw new IllegalArgumentException("levels must be at least 1");
+        }
+        this.levelCount = levels;
+        this.buffers = new byte[levels][];
+        this.preferredLevel = levels - 1;
+    }
+
+    /**
+     * Downscale an image by averaging blocks of 2x2 pixels. A trailing odd row or column is
+     * dropped.
+     *
+     * @param matrix the image
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param out receives the downscaled image, of (width / 2) * (height / 2) pixels
+     */
+    static void downscale(byte[] matrix, int width, int height, byte[] out) {
+        int outWidth = width / 2;
+        int outHeight = height / 2;
+        for (int y = 0; y < outHeight; y++) {
+            int top = 2 * y * width;
+            int bottom = top + width;
+            int outOffset = y * outWidth;
+            for (int x = 0; x < outWidth; x++) {
+                int sum = (matrix[top + 2 * x] & 0xff) + (matrix[top + 2 * x + 1] & 0xff) +
+                        (matrix[bottom + 2 * x] & 0xff) + (matrix[bottom + 2 * x + 1] & 0xff);
+                out[outOffset + x] = (byte) ((sum + 2) >> 2);
+            }
+        }
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        // Build the levels that are large enough, each from the previous one.
+        LuminanceSource[] levels = new LuminanceSource[levelCount];
+        levels[0] = source;
+        int available = 1;
+        byte[] matrix = null;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        while (available < levelCount && width / 2 >= MIN_LEVEL_SIZE && height / 2 >= MIN_LEVEL_SIZE) {
+            if (matrix == null) {
+                matrix = source.getMatrix();
+            }
+            int outWidth = width / 2;
+            int outHeight = height / 2;
+            byte[] out = buffers[available];
+            if (out == null || out.length != outWidth * outHeight) {
+                out = new byte[outWidth * outHeight];
+                buffers[available] = out;
+            }
+            downscale(matrix, width, height, out);
+            levels[available] = new PlanarYUVLuminanceSource(out, outWidth, outHeight, 0, 0, outWidth, outHeight, false);
+            matrix = out;
+            width = outWidth;
+            height = outHeight;
+            available++;
+        }
+
+        // The preferred level first, then the finer levels, then the coarser ones.
+        int start = Math.min(preferredLevel, available - 1);
+        clearPossibleResultPoints();
+        for (int i = 0; i < available; i++) {
+            int level = i <= start ? start - i : i;
+            Result result = decodeLevel(levels[level], level);
+            if (result != null) {
+                preferredLevel = level;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private Result decodeLevel(LuminanceSource source, int level) {
+        // Decoder.decode(BinaryBitmap) clears the possible result points, so keep those of the
+        // previous levels.
+        List<ResultPoint> points = getPossibleResultPoints();
+        currentScale = 1 << level;
+        try {
+            Result result = decode(toBitmap(source));
+            if (result != null && level > 0) {
+                scale(result, currentScale);
+            }
+            return result;
+        } finally {
+            currentScale = 1;
+            for (ResultPoint point : points) {
+                super.foundPossibleResultPoint(point);
+            }
+        }
+    }
+
+    private static void scale(Result result, int scale) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points != null) {
+            for (int i = 0; i < points.length; i++) {
+                if (points[i] != null) {
+                    points[i] = scale(points[i], scale);
+                }
+            }
+        }
+    }
+
+    // The center of a pixel at a coarse level maps to the center of the block of pixels.
+    private static ResultPoint scale(ResultPoint point, int scale) {
+        float offset = (scale - 1) / 2f;
+        return new ResultPoint(point.getX() * scale + offset, point.getY() * scale + offset);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(ResultPoint point) {
+        super.foundPossibleResultPoint(currentScale == 1 ? point : scale(point, currentScale));
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     *
+     * @return the level tried first on the next frame, where 0 is the full resolution
+     */
+    public int getPreferredLevel() {
+        return preferredLevel;
+    }
+}
@@ -3,14 +3,36 @@ package com.journeyapps.barcodescanner;
 import android.graphics.Rect;
 
 public class RawImageData {
+    // Tile size for blocked rotation. A tile reads TILE_SIZE cache lines from the source, which
+    // comfortably fits in L1 cache on low-end devices.
+    private static final int TILE_SIZE = 32;
+
     private byte[] data;
     private int width;
     private int height;
+    private int rowStride;
+    private int pixelStride;
 
     public RawImageData(byte[] data, int width, int height) {
+        this(data, width, height, width, 1);
+    }
+
+    /**
+     * Image data where the luminance of pixel (x, y) is at y * rowStride + x * pixelStride.
+     *
+     * @param data the image data
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param rowStride distance between rows, in bytes
+     * @param pixelStride distance between pixels within a row, in bytes
+     * @see YuvLayout
+     */
+    public RawImageData(byte[] data, int width, int height, int rowStride, int pixelStride) {
         this.data = data;
         this.width = width;
         this.height = height;
+        this.rowStride = rowStride;
+        this.pixelStride = pixelStride;
     }
 
     public byte[] getData() {
@@ -25,44 +47,151 @@ public class RawImageData {
         return height;
     }
 
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    public int getPixelStride() {
+        return pixelStride;
+    }
+
+    /**
+     *
+     * @return true if the rows are stored without gaps, with one byte per pixel
+     */
+    public boolean isCompact() {
+        return rowStride == width && pixelStride == 1;
+    }
+
     public RawImageData cropAndScale(Rect cropRect, int scale) {
-        int width = cropRect.width() / scale;
-        int height = cropRect.height() / scale;
+        return cropAndScale(cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), scale);
+    }
 
-        int top = cropRect.top;
+    public RawImageData cropAndScale(int left, int top, int cropWidth, int cropHeight, int scale) {
+        return rotateCropAndScale(0, left, top, cropWidth, cropHeight, scale);
+    }
+
+
+    /**
+     * Rotate, crop and scale the image in a single pass.
+     *
+     * This gives the same result as rotateCameraPreview(cameraRotation).cropAndScale(cropRect, scale),
+     * but only the pixels inside the crop rectangle are read, and no intermediate image is created.
+     *
+     * @param cameraRotation the camera rotation in degrees (0, 90, 180 or 270)
+     * @param cropRect the crop rectangle, in rotated (display) coordinates
+     * @param scale factor to scale down by
+     * @return the rotated, cropped and scaled image
+     */
+    public RawImageData rotateCropAndScale(int cameraRotation, Rect cropRect, int scale) {
+        return rotateCropAndScale(cameraRotation, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), scale);
+    }
 
-        int area = width * height;
-        byte[] matrix = new byte[area];
+    public RawImageData rotateCropAndScale(int cameraRotation, int left, int top, int cropWidth, int cropHeight, int scale) {
+        int width = cropWidth / scale;
+        int height = cropHeight / scale;
+
+        int[] t = rotationTransform(cameraRotation, this.width, this.height, rowStride, pixelStride, left, top, scale);
+        byte[] matrix = new byte[width * height];
+        transform(data, t[0], t[1], t[2], width, height, matrix);
+        return new RawImageData(matrix, width, height);
+    }
+
+    /**
+     * Calculate the index transform to read a rotated, cropped and scaled image directly from
+     * the source data. See transform() for the meaning of the values.
+     *
+     * @param cameraRotation the camera rotation in degrees (0, 90, 180 or 270)
+     * @param width width of the source data
+     * @param height height of the source data
+     * @param left left of the crop rectangle, in rotated coordinates
+     * @param top top of the crop rectangle, in rotated coordinates
+     * @param scale factor to scale down by
+     * @return {offset, xStride, yStride}
+     */
+    static int[] rotationTransform(int cameraRotation, int width, int height, int left, int top, int scale) {
+        return rotationTransform(cameraRotation, width, height, width, 1, left, top, scale);
+    }
 
-        if (scale == 1) {
-            int inputOffset = top * this.width + cropRect.left;
+    /**
+     * Like rotationTransform(cameraRotation, width, height, left, top, scale), for source data
+     * with the specified row and pixel strides.
+     */
+    static int[] rotationTransform(int cameraRotation, int width, int height, int rowStride, int pixelStride, int left, int top, int scale) {
+        switch (cameraRotation) {
+            case 90:
+                return new int[]{(height - 1 - left) * rowStride + top * pixelStride, -scale * rowStride, scale * pixelStride};
+            case 180:
+                return new int[]{(height - 1 - top) * rowStride + (width - 1 - left) * pixelStride, -scale * pixelStride, -scale * rowStride};
+            case 270:
+                return new int[]{left * rowStride + (width - 1 - top) * pixelStride, scale * rowStride, -scale * pixelStride};
+            case 0:
+            default:
+                return new int[]{top * rowStride + left * pixelStride, scale * pixelStride, scale * rowStride};
+        }
+    }
 
-            // Copy one cropped row at a time.
+    /**
+     * Copy pixels using an index transform: output[y * width + x] = data[offset + x * xStride + y * yStride].
+     *
+     * Any combination of rotation, mirroring, cropping and subsampling can be expressed this way.
+     *
+     * When the source is read column by column (90 or 270 degree rotation), the copy is done in
+     * square tiles, so that each source cache line is used for multiple output pixels.
+     *
+     * @param data the source data
+     * @param offset index of the source pixel for output (0, 0)
+     * @param xStride source index increment per output column
+     * @param yStride source index increment per output row
+     * @param width output width
+     * @param height output height
+     * @param output the output array, at least width * height bytes
+     */
+    static void transform(byte[] data, int offset, int xStride, int yStride, int width, int height, byte[] output) {
+        int outputOffset = 0;
+        if (xStride == 1) {
+            // Copy one row at a time.
             for (int y = 0; y < height; y++) {
-                int outputOffset = y * width;
-                System.arraycopy(this.data, inputOffset, matrix, outputOffset, width);
-                inputOffset += this.width;
+                System.arraycopy(data, offset, output, outputOffset, width);
+                offset += yStride;
+                outputOffset += width;
+            }
+        } else if (Math.abs(xStride) > Math.abs(yStride)) {
+            // Consecutive output pixels are far apart in the source. Copying a row at a time
+            // would incur a cache miss for every pixel on large images.
+            for (int tileY = 0; tileY < height; tileY += TILE_SIZE) {
+                int tileHeight = Math.min(TILE_SIZE, height - tileY);
+                for (int tileX = 0; tileX < width; tileX += TILE_SIZE) {
+                    int tileWidth = Math.min(TILE_SIZE, width - tileX);
+                    int rowOffset = offset + tileX * xStride + tileY * yStride;
+                    for (int y = tileY; y < tileY + tileHeight; y++) {
+                        int inputOffset = rowOffset;
+                        outputOffset = y * width + tileX;
+                        for (int x = 0; x < tileWidth; x++) {
+                            output[outputOffset++] = data[inputOffset];
+                            inputOffset += xStride;
+                        }
+                        rowOffset += yStride;
+                    }
+                }
             }
         } else {
-            int inputOffset = top * this.width + cropRect.left;
-
-            // Copy one cropped row at a time.
             for (int y = 0; y < height; y++) {
-                int outputOffset = y * width;
-                int xOffset = inputOffset;
+                int inputOffset = offset;
                 for (int x = 0; x < width; x++) {
-                    matrix[outputOffset] = this.data[xOffset];
-                    xOffset += scale;
-                    outputOffset += 1;
+                    output[outputOffset++] = data[inputOffset];
+                    inputOffset += xStride;
                 }
-                inputOffset += this.width * scale;
+                offset += yStride;
             }
         }
-        return new RawImageData(matrix, width, height);
     }
 
-
     public RawImageData rotateCameraPreview(int cameraRotation) {
+        if (!isCompact()) {
+            boolean rotated = cameraRotation % 180 != 0;
+            return rotateCropAndScale(cameraRotation, 0, 0, rotated ? height : width, rotated ? width : height, 1);
+        }
         switch (cameraRotation) {
             case 90:
                 return new RawImageData(rotateCW(data, this.width, this.height), this.height, this.width);
@@ -85,17 +214,10 @@ public class RawImageData {
      * @return the rotated bytes
      */
     public static byte[] rotateCW(byte[] data, int imageWidth, int imageHeight) {
-        // Adapted from http://stackoverflow.com/a/15775173
         // data may contain more than just y (u and v), but we are only interested in the y section.
-
         byte[] yuv = new byte[imageWidth * imageHeight];
-        int i = 0;
-        for (int x = 0; x < imageWidth; x++) {
-            for (int y = imageHeight - 1; y >= 0; y--) {
-                yuv[i] = data[y * imageWidth + x];
-                i++;
-            }
-        }
+        int[] t = rotationTransform(90, imageWidth, imageHeight, 0, 0, 1);
+        transform(data, t[0], t[1], t[2], imageHeight, imageWidth, yuv);
         return yuv;
     }
 
@@ -128,15 +250,9 @@ public class RawImageData {
      * @return the rotated bytes
      */
     public static byte[] rotateCCW(byte[] data, int imageWidth, int imageHeight) {
-        int n = imageWidth * imageHeight;
-        byte[] yuv = new byte[n];
-        int i = n - 1;
-        for (int x = 0; x < imageWidth; x++) {
-            for (int y = imageHeight - 1; y >= 0; y--) {
-                yuv[i] = data[y * imageWidth + x];
-                i--;
-            }
-        }
+        byte[] yuv = new byte[imageWidth * imageHeight];
+        int[] t = rotationTransform(270, imageWidth, imageHeight, 0, 0, 1);
+        transform(data, t[0], t[1], t[2], imageHeight, imageWidth, yuv);
         return yuv;
     }
 }
@@ -0,0 +1,28 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Result;
+
+import java.util.List;
+
+/**
+ * A stage after decoding a frame, that may drop results before they are delivered, for example
+ * duplicates of a barcode that was just reported.
+ *
+ * filter() is called one frame at a time, in capture order, but not always from the same thread.
+ *
+ * @see BarcodeView#setResultFilter(ResultFilter)
+ * @see DuplicateFilter
+ * @see ConsensusFilter
+ * @see CompositeResultFilter
+ */
+public interface ResultFilter {
+    /**
+     * Filter the results of a frame.
+     *
+     * This is called on a decoder thread, after decoding a frame with at least one result.
+     *
+     * @param results the results of the frame, not empty
+     * @return the results to deliver, possibly empty
+     */
+    List<Result> filter(List<Result> results);
+}
@@ -0,0 +1,195 @@
+package com.journeyapps.barcodescanner;
+
+import android.graphics.Rect;
+
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.List;
+
+/**
+ * Narrows the decode region to the area around the last detected barcode.
+ *
+ * After a barcode is found, the next frames are decoded over an expanded bounding box of its
+ * result points, instead of the full crop rectangle. If nothing is found, but the decoder reported
+ * possible result points (for example QR finder pattern candidates), the region is narrowed to
+ * those. After maxMisses frames without a result in a narrowed region, decoding falls back to the
+ * full crop rectangle.
+ *
+ * getRegion() may be called while another decoder thread calls update().
+ */
+public class RoiTracker {
+    public static final int DEFAULT_MAX_MISSES = 3;
+
+    // The bounding box is expanded by this fraction of its largest side, on each side.
+    private static final float PADDING = 0.5f;
+
+    // Additional padding, in pixels of the preview.
+    private static final int MIN_PADDING = 16;
+
+    // Minimum number of possible result points to narrow the region without a result.
+    private static final int MIN_POSSIBLE_POINTS = 3;
+
+    private final int maxMisses;
+
+    private final Object LOCK = new Object();
+    private boolean tracking = false;
+    private int misses = 0;
+    // The region, in display coordinates.
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    public RoiTracker() {
+        this(DEFAULT_MAX_MISSES);
+    }
+
+    /**
+     *
+     * @param maxMisses the number of frames without a result before falling back to the full crop
+     *                  rectangle
+     */
+    public RoiTracker(int maxMisses) {
+        this.maxMisses = maxMisses;
+    }
+
+    /**
+     * Get the region to decode for the next frame.
+     *
+     * @param fullRect the full crop rectangle, in display coordinates
+     * @return the region within fullRect, or fullRect if not tracking
+     */
+    public Rect getRegion(Rect fullRect) {
+        if (fullRect == null) {
+            return null;
+        }
+        int[] region = getRegion(fullRect.left, fullRect.top, fullRect.right, fullRect.bottom);
+        if (region == null) {
+            return fullRect;
+        }
+        return new Rect(region[0], region[1], region[2], region[3]);
+    }
+
+    /**
+     * Get the region to decode for the next frame.
+     *
+     * @return {left, top, right, bottom} within the full rectangle, or null to use the full
+     * rectangle
+     */
+    int[] getRegion(int fullLeft, int fullTop, int fullRight, int fullBottom) {
+        synchronized (LOCK) {
+            if (!tracking) {
+                return null;
+            }
+            int[] region = {
+                    Math.max(fullLeft, left),
+                    Math.max(fullTop, top),
+                    Math.min(fullRight, right),
+                    Math.min(fullBottom, bottom)
+            };
+            if (region[2] - region[0] < 2 * MIN_PADDING || region[3] - region[1] < 2 * MIN_PADDING) {
+                // Outside the full rectangle, or too small to be useful
+                return null;
+            }
+            return region;
+        }
+    }
+
+    /**
+     * Update the region after decoding a frame.
+     *
+     * @param region the region that was decoded, in display coordinates
+     * @param scale the scaling factor of the frame
+     * @param results the results, possibly empty
+     * @param possibleResultPoints the possible result points reported by the decoder, relative to
+     *                             the region
+     */
+    public void update(Rect region, int scale, List<Result> results, List<ResultPoint> possibleResultPoints) {
+        update(region.left, region.top, scale, results, possibleResultPoints);
+    }
+
+    void update(int regionLeft, int regionTop, int scale, List<Result> results, List<ResultPoint> possibleResultPoints) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        int count = 0;
+        if (!results.isEmpty()) {
+            for (Result result : results) {
+                ResultPoint[] points = result.getResultPoints();
+                if (points != null) {
+                    for (ResultPoint point : points) {
+                        if (point != null) {
+                            minX = Math.min(minX, point.getX());
+                            minY = Math.min(minY, point.getY());
+                            maxX = Math.max(maxX, point.getX());
+                            maxY = Math.max(maxY, point.getY());
+                            count++;
+                        }
+                    }
+                }
+            }
+        } else if (possibleResultPoints != null && possibleResultPoints.size() >= MIN_POSSIBLE_POINTS) {
+            for (ResultPoint point : possibleResultPoints) {
+                minX = Math.min(minX, point.getX());
+                minY = Math.min(minY, point.getY());
+                maxX = Math.max(maxX, point.getX());
+                maxY = Math.max(maxY, point.getY());
+                count++;
+            }
+        }
+
+        synchronized (LOCK) {
+            if (results.isEmpty()) {
+                misses++;
+                if (misses > maxMisses) {
+                    // Decode the full rectangle again. Its candidates may narrow the region anew.
+                    tracking = false;
+                    misses = 0;
+                    return;
+                }
+                if (tracking || count == 0) {
+                    // Keep the current region. Candidates only narrow the full rectangle.
+                    return;
+                }
+            } else {
+                misses = 0;
+                if (count == 0) {
+                    // No points to track
+                    tracking = false;
+                    return;
+                }
+            }
+
+            // Convert to display coordinates, and expand.
+            float size = Math.max(maxX - minX, maxY - minY) * scale;
+            int padding = (int) (size * PADDING) + MIN_PADDING;
+            left = (int) (minX * scale) + regionLeft - padding;
+            top = (int) (minY * scale) + regionTop - padding;
+            right = (int) Math.ceil(maxX * scale) + regionLeft + padding;
+            bottom = (int) Math.ceil(maxY * scale) + regionTop + padding;
+            tracking = true;
+        }
+    }
+
+    /**
+     *
+     * @return true if the region is currently narrowed
+     */
+    public boolean isTracking() {
+        synchronized (LOCK) {
+            return tracking;
+        }
+    }
+
+    /**
+     * Stop tracking, and decode the full crop rectangle from the next frame.
+     */
+    public void reset() {
+        synchronized (LOCK) {
+            tracking = false;
+            misses = 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A LuminanceSource reading directly from raw camera preview data.
+ *
+ * Rotation, mirroring, cropping, scaling and inversion are applied through an index transform
+ * when pixels are read, instead of copying the image up front. Rows are only computed when
+ * requested, which helps readers that only look at a few rows (e.g. 1D readers).
+ *
+ * crop(), rotateCounterClockwise() and invert() return views on the same data, without copying.
+ *
+ * The source data must not be modified while the LuminanceSource is in use.
+ */
+public class RotatedLuminanceSource extends LuminanceSource {
+    private final byte[] data;
+    // Pixel (x, y) is read from data[offset + x * xStride + y * yStride]
+    private final int offset;
+    private final int xStride;
+    private final int yStride;
+    private final boolean inverted;
+
+    /**
+     *
+     * @param data the image data, with the first dataWidth * dataHeight bytes being the luminance
+     * @param dataWidth width of the data
+     * @param dataHeight height of the data
+     * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270)
+     * @param mirrored true to mirror the image horizontally, after rotation
+     * @param left left of the crop rectangle, in display orientation
+     * @param top top of the crop rectangle, in display orientation
+     * @param cropWidth width of the crop rectangle
+     * @param cropHeight height of the crop rectangle
+     * @param scale factor to scale down by
+     */
+    public RotatedLuminanceSource(byte[] data, int dataWidth, int dataHeight, int rotation, boolean mirrored,
+                                  int left, int top, int cropWidth, int cropHeight, int scale) {
+        this(new RawImageData(data, dataWidth, dataHeight), rotation, mirrored, left, top, cropWidth, cropHeight, scale);
+    }
+
+    /**
+     *
+     * @param image the image data, which may have a row and pixel stride
+     * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270)
+     * @param mirrored true to mirror the image horizontally, after rotation
+     * @param left left of the crop rectangle, in display orientation
+     * @param top top of the crop rectangle, in display orientation
+     * @param cropWidth width of the crop rectangle
+     * @param cropHeight height of the crop rectangle
+     * @param scale factor to scale down by
+     */
+    public RotatedLuminanceSource(RawImageData image, int rotation, boolean mirrored,
+                                  int left, int top, int cropWidth, int cropHeight, int scale) {
+        super(cropWidth / scale, cropHeight / scale);
+
+        int dataWidth = image.getWidth();
+        int dataHeight = image.getHeight();
+        int rowStride = image.getRowStride();
+        int pixelStride = image.getPixelStride();
+        if ((dataHeight - 1) * rowStride + (dataWidth - 1) * pixelStride >= image.getData().length) {
+            throw new IllegalArgumentException("Image data does not match the resolution. " + dataWidth + "x" + dataHeight + " > " + image.getData().length);
+        }
+        int displayWidth = rotation % 180 == 0 ? dataWidth : dataHeight;
+        int displayHeight = rotation % 180 == 0 ? dataHeight : dataWidth;
+        if (left < 0 || top < 0 || left + cropWidth > displayWidth || top + cropHeight > displayHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        this.data = image.getData();
+        if (mirrored) {
+            // Start at the mirrored left edge, and walk backwards.
+            int[] t = RawImageData.rotationTransform(rotation, dataWidth, dataHeight, rowStride, pixelStride, displayWidth - 1 - left, top, scale);
+            this.offset = t[0];
+            this.xStride = -t[1];
+            this.yStride = t[2];
+        } else {
+            int[] t = RawImageData.rotationTransform(rotation, dataWidth, dataHeight, rowStride, pixelStride, left, top, scale);
+            this.offset = t[0];
+            this.xStride = t[1];
+            this.yStride = t[2];
+        }
+        this.inverted = false;
+    }
+
+    private RotatedLuminanceSource(byte[] data, int offset, int xStride, int yStride, int width, int height, boolean inverted) {
+        super(width, height);
+        this.data = data;
+        this.offset = offset;
+        this.xStride = xStride;
+        this.yStride = yStride;
+        this.inverted = inverted;
+    }
+
+    @Override
+    public byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        RawImageData.transform(data, offset + y * yStride, xStride, 0, width, 1, row);
+        if (inverted) {
+            invert(row, width);
+        }
+        return row;
+    }
+
+    @Override
+    public byte[] getMatrix() {
+        int area = getWidth() * getHeight();
+        byte[] matrix = new byte[area];
+        RawImageData.transform(data, offset, xStride, yStride, getWidth(), getHeight(), matrix);
+        if (inverted) {
+            invert(matrix, area);
+        }
+        return matrix;
+    }
+
+    /**
+     * Read a single pixel, without copying a row.
+     *
+     * @param x the column
+     * @param y the row
+     * @return the luminance
+     */
+    byte getPixel(int x, int y) {
+        byte value = data[offset + x * xStride + y * yStride];
+        return inverted ? (byte) ~value : value;
+    }
+
+    private static void invert(byte[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            values[i] = (byte) ~values[i];
+        }
+    }
+
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource crop(int left, int top, int width, int height) {
+        if (left < 0 || top < 0 || left + width > getWidth() || top + height > getHeight()) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+        return new RotatedLuminanceSource(data, offset + left * xStride + top * yStride, xStride, yStride, width, height, inverted);
+    }
+
+    @Override
+    public boolean isRotateSupported() {
+        return true;
+    }
+
+    @Override
+    public LuminanceSource rotateCounterClockwise() {
+        // The top-right pixel becomes the top-left pixel.
+        return new RotatedLuminanceSource(data, offset + (getWidth() - 1) * xStride, yStride, -xStride, getHeight(), getWidth(), inverted);
+    }
+
+    @Override
+    public LuminanceSource invert() {
+        return new RotatedLuminanceSource(data, offset, xStride, yStride, getWidth(), getHeight(), !inverted);
+    }
+}
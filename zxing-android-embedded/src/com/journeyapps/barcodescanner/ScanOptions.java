@@ -160,6 +160,33 @@ public class ScanOptions {
         return this;
     }
 
+    /**
+     * Decode most frames quickly, and escalate to the slower TRY_HARDER mode every interval-th
+     * frame, and after a number of consecutive frames without a result.
+     *
+     * @param interval use TRY_HARDER for every interval-th frame, or 0 to only escalate after misses
+     * @param afterMisses use TRY_HARDER once after every this many frames without a result, or 0
+     *                    to only escalate periodically
+     * @return this
+     */
+    public ScanOptions setTryHarderSchedule(int interval, int afterMisses) {
+        addExtra(Intents.Scan.TRY_HARDER_INTERVAL, interval);
+        addExtra(Intents.Scan.TRY_HARDER_AFTER_MISSES, afterMisses);
+        return this;
+    }
+
+    /**
+     * Learn which formats are scanned most often, and try only those in most frames. The counts
+     * are saved when the scan screen is paused, and loaded by the next scan.
+     *
+     * @param enabled true to learn the scanned formats
+     * @return this
+     */
+    public ScanOptions setLearnFormats(boolean enabled) {
+        addExtra(Intents.Scan.LEARN_FORMATS, enabled);
+        return this;
+    }
+
     /**
      * Set the desired barcode formats to scan.
      *
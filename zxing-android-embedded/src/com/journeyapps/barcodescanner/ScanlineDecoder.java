@@ -0,0 +1,287 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.oned.MultiFormatOneDReader;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decoder for 1D barcodes only, that samples individual scanlines instead of binarizing the
+ * full image.
+ *
+ * Scanlines start at the center row, and spread outwards. Each scanline is thresholded on its
+ * own, and passed directly to the 1D readers. Optionally, scanlines at an angle of +15 and -15
+ * degrees are sampled as well, for barcodes that are held slightly tilted.
+ *
+ * This is much cheaper than a HybridBinarizer over the full image, but only finds barcodes with
+ * roughly horizontal scanlines through them.
+ */
+public class ScanlineDecoder extends Decoder {
+    private static final Set<BarcodeFormat> ONE_D_FORMATS = EnumSet.of(
+            BarcodeFormat.CODABAR, BarcodeFormat.CODE_39, BarcodeFormat.CODE_93, BarcodeFormat.CODE_128,
+            BarcodeFormat.EAN_8, BarcodeFormat.EAN_13, BarcodeFormat.ITF, BarcodeFormat.RSS_14,
+            BarcodeFormat.RSS_EXPANDED, BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.UPC_EAN_EXTENSION);
+
+    // tan(15 degrees)
+    private static final float ANGLE_SLOPE = 0.2679f;
+
+    private static final int LUMINANCE_BITS = 5;
+    private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
+    private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+
+    private final MultiFormatOneDReader reader;
+    private final Map<DecodeHintType, ?> hints;
+    private final int scanlineCount;
+    private final boolean angled;
+
+    private final int[] buckets = new int[LUMINANCE_BUCKETS];
+    private byte[] luminances = new byte[0];
+    private byte[] rowBuffer = null;
+
+    /**
+     * Create a ScanlineDecoder.
+     *
+     * @param hints the hints. POSSIBLE_FORMATS should only contain 1D formats.
+     * @param scanlineCount the number of horizontal scanlines to sample
+     * @param angled true to sample scanlines at +15 and -15 degrees as well
+     */
+    public ScanlineDecoder(Map<DecodeHintType, ?> hints, int scanlineCount, boolean angled) {
+        this(new MultiFormatOneDReader(hints), hints, scanlineCount, angled);
+    }
+
+    private ScanlineDecoder(MultiFormatOneDReader reader, Map<DecodeHintType, ?> hints, int scanlineCount, boolean angled) {
+        super(reader);
+        if (scanlineCount < 1) {
+            throw new IllegalArgumentException("scanlineCount must be at least 1");
+        }
+        this.reader = reader;
+        this.hints = hints;
+        this.scanlineCount = scanlineCount;
+        this.angled = angled;
+    }
+
+    /**
+     *
+     * @param formats the formats to decode
+     * @return true if formats is not empty, and only contains 1D formats
+     */
+    public static boolean isOneDimensional(Collection<BarcodeFormat> formats) {
+        return formats != null && !formats.isEmpty() && ONE_D_FORMATS.containsAll(formats);
+    }
+
+    /**
+     *
+     * @param formats the formats to decode
+     * @return true if formats contains at least one 1D format
+     */
+    static boolean containsOneDimensional(Collection<BarcodeFormat> formats) {
+        return formats != null && !Collections.disjoint(ONE_D_FORMATS, formats);
+    }
+
+    /**
+     * Get the rows to sample: the center row first, then alternating above and below it.
+     *
+     * @param height the height of the image
+     * @param count the maximum number of rows
+     * @return the rows
+     */
+    static int[] scanlineRows(int height, int count) {
+        count = Math.min(count, height);
+        int[] rows = new int[count];
+        int center = height / 2;
+        // Spread the rows evenly over the height.
+        float step = (float) height / count;
+        for (int i = 0; i < count; i++) {
+            int distance = (int) (((i + 1) / 2) * step);
+            int row = (i % 2 == 1) ? center - distance : center + distance;
+            rows[i] = Math.max(0, Math.min(height - 1, row));
+        }
+        return rows;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        clearPossibleResultPoints();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (luminances.length < width) {
+            luminances = new byte[width];
+        }
+        BitArray row = new BitArray(width);
+
+        try {
+            for (int y : scanlineRows(height, scanlineCount)) {
+                luminances = source.getRow(y, luminances);
+                Result result = decodeScanline(row, width, y, 0);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            if (angled) {
+                // Fewer angled scanlines, since they cover more rows each.
+                for (int y : scanlineRows(height, (scanlineCount + 1) / 2)) {
+                    for (float slope : new float[]{ANGLE_SLOPE, -ANGLE_SLOPE}) {
+                        sampleAngled(source, width, height, y, slope);
+                        Result result = decodeScanline(row, width, y, slope);
+                        if (result != null) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    // Sample the line through (width / 2, centerY) with the given slope into luminances.
+    // Pixels outside the image are taken from the nearest row.
+    private void sampleAngled(LuminanceSource source, int width, int height, int centerY, float slope) {
+        if (source instanceof RotatedLuminanceSource) {
+            // Read the pixels directly from the preview data.
+            RotatedLuminanceSource rotated = (RotatedLuminanceSource) source;
+            for (int x = 0; x < width; x++) {
+                luminances[x] = rotated.getPixel(x, angledRow(x, width, height, centerY, slope));
+            }
+        } else {
+            // The row only changes in one direction along the line, so each row is read once.
+            int loadedRow = -1;
+            for (int x = 0; x < width; x++) {
+                int y = angledRow(x, width, height, centerY, slope);
+                if (y != loadedRow) {
+                    rowBuffer = source.getRow(y, rowBuffer);
+                    loadedRow = y;
+                }
+                luminances[x] = rowBuffer[x];
+            }
+        }
+    }
+
+    private static int angledRow(int x, int width, int height, int centerY, float slope) {
+        int y = Math.round(centerY + (x - width / 2) * slope);
+        return Math.max(0, Math.min(height - 1, y));
+    }
+
+    private Result decodeScanline(BitArray row, int width, int y, float slope) {
+        if (!thresholdRow(luminances, width, buckets, row)) {
+            // Not enough contrast
+            return null;
+        }
+        // Try both directions, for upside-down barcodes.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (attempt == 1) {
+                row.reverse();
+            }
+            try {
+                Result result = reader.decodeRow(y, row, hints);
+                if (attempt == 1 || slope != 0) {
+                    translatePoints(result, width, y, slope, attempt == 1);
+                }
+                return result;
+            } catch (Exception e) {
+                // Not found on this scanline
+            }
+        }
+        return null;
+    }
+
+    private static void translatePoints(Result result, int width, int y, float slope, boolean reversed) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null) {
+            return;
+        }
+        for (int i = 0; i < points.length; i++) {
+            if (points[i] != null) {
+                float x = reversed ? width - points[i].getX() - 1 : points[i].getX();
+                points[i] = new ResultPoint(x, y + (x - width / 2) * slope);
+            }
+        }
+    }
+
+    /**
+     * Threshold a single row, using the valley between the two peaks in its histogram, like
+     * GlobalHistogramBinarizer.
+     *
+     * @param luminances the luminance of the row
+     * @param width the width of the row
+     * @param buckets temporary histogram storage, of LUMINANCE_BUCKETS entries
+     * @param row receives the black pixels
+     * @return false if the row does not have enough contrast
+     */
+    static boolean thresholdRow(byte[] luminances, int width, int[] buckets, BitArray row) {
+        Arrays.fill(buckets, 0);
+        for (int x = 0; x < width; x++) {
+            buckets[(luminances[x] & 0xff) >> LUMINANCE_SHIFT]++;
+        }
+
+        // The tallest peak, then the peak furthest away from it, weighted by height.
+        int firstPeak = 0;
+        int maxBucketCount = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > maxBucketCount) {
+                firstPeak = i;
+                maxBucketCount = buckets[i];
+            }
+        }
+        int secondPeak = 0;
+        int secondPeakScore = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            int distance = i - firstPeak;
+            int score = buckets[i] * distance * distance;
+            if (score > secondPeakScore) {
+                secondPeak = i;
+                secondPeakScore = score;
+            }
+        }
+        if (firstPeak > secondPeak) {
+            int temp = firstPeak;
+            firstPeak = secondPeak;
+            secondPeak = temp;
+        }
+        if (secondPeak - firstPeak <= LUMINANCE_BUCKETS / 16) {
+            return false;
+        }
+
+        // The deepest valley between the peaks, closer to the white peak.
+        int bestValley = secondPeak - 1;
+        int bestValleyScore = -1;
+        for (int i = secondPeak - 1; i > firstPeak; i--) {
+            int fromFirst = i - firstPeak;
+            int score = fromFirst * fromFirst * (secondPeak - i) * (maxBucketCount - buckets[i]);
+            if (score > bestValleyScore) {
+                bestValley = i;
+                bestValleyScore = score;
+            }
+        }
+        int blackPoint = bestValley << LUMINANCE_SHIFT;
+
+        // Sharpen slightly with a [-1 4 -1] kernel, to help with blurry edges.
+        row.clear();
+        if (width < 3) {
+            return true;
+        }
+        int left = luminances[0] & 0xff;
+        int center = luminances[1] & 0xff;
+        for (int x = 1; x < width - 1; x++) {
+            int right = luminances[x + 1] & 0xff;
+            if (((center * 4) - left - right) / 2 < blackPoint) {
+                row.set(x);
+            }
+            left = center;
+            center = right;
+        }
+        return true;
+    }
+}
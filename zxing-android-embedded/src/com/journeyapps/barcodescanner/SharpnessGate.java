@@ -0,0 +1,179 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * FrameGate that skips blurry frames, for example while the camera is focusing or moving.
+ *
+ * The sharpness of a frame is the mean gradient energy over a grid of samples. A frame is skipped
+ * if its sharpness is below a fraction of the recent average, so the threshold adapts to the
+ * scene and lighting. To avoid stalling on a scene that is blurry all the time, a frame is always
+ * accepted after a number of consecutive rejections.
+ *
+ * Statistics are available to tune the parameters.
+ */
+public class SharpnessGate implements FrameGate {
+    public static final float DEFAULT_RELATIVE_THRESHOLD = 0.6f;
+    public static final int DEFAULT_MAX_CONSECUTIVE_REJECTIONS = 5;
+
+    // Number of rows and columns sampled.
+    private static final int SAMPLES = 48;
+
+    // Weight of a new frame in the average sharpness.
+    private static final float AVERAGE_WEIGHT = 0.1f;
+
+    private final float relativeThreshold;
+    private final int maxConsecutiveRejections;
+
+    private final Object LOCK = new Object();
+    private float averageSharpness = 0;
+    private float lastSharpness = 0;
+    private int consecutiveRejections = 0;
+    private long frameCount = 0;
+    private long rejectedCount = 0;
+    private long successCount = 0;
+
+    public SharpnessGate() {
+        this(DEFAULT_RELATIVE_THRESHOLD, DEFAULT_MAX_CONSECUTIVE_REJECTIONS);
+    }
+
+    /**
+     *
+     * @param relativeThreshold frames with a sharpness below this fraction of the average are
+     *                          rejected
+     * @param maxConsecutiveRejections accept a frame after this many consecutive rejections
+     */
+    public SharpnessGate(float relativeThreshold, int maxConsecutiveRejections) {
+        this.relativeThreshold = relativeThreshold;
+        this.maxConsecutiveRejections = maxConsecutiveRejections;
+    }
+
+    @Override
+    public boolean accept(LuminanceSource source) {
+        float sharpness = sharpness(source);
+        synchronized (LOCK) {
+            frameCount++;
+            lastSharpness = sharpness;
+            boolean accept;
+            if (frameCount == 1) {
+                averageSharpness = sharpness;
+                accept = true;
+            } else {
+                accept = sharpness >= averageSharpness * relativeThreshold ||
+                        consecutiveRejections >= maxConsecutiveRejections;
+                averageSharpness += (sharpness - averageSharpness) * AVERAGE_WEIGHT;
+            }
+            if (accept) {
+                consecutiveRejections = 0;
+            } else {
+                consecutiveRejections++;
+                rejectedCount++;
+            }
+            return accept;
+        }
+    }
+
+    @Override
+    public void decodeFinished(boolean success) {
+        if (success) {
+            synchronized (LOCK) {
+                successCount++;
+            }
+        }
+    }
+
+    /**
+     * Compute the mean gradient energy over a grid of samples. Each sample is the squared
+     * difference to the next pixel horizontally plus the squared difference to the next pixel
+     * vertically, so this measures detail at full resolution, while only reading a few rows.
+     *
+     * @param source the image source
+     * @return the sharpness, 0 for a uniform image
+     */
+    static float sharpness(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width < 2 || height < 2) {
+            return 0;
+        }
+        int rowStep = Math.max(1, (height - 1) / SAMPLES);
+        int columnStep = Math.max(1, (width - 1) / SAMPLES);
+        byte[] row = null;
+        byte[] nextRow = null;
+        long energy = 0;
+        int count = 0;
+        for (int y = rowStep / 2; y < height - 1; y += rowStep) {
+            row = source.getRow(y, row);
+            nextRow = source.getRow(y + 1, nextRow);
+            for (int x = columnStep / 2; x < width - 1; x += columnStep) {
+                int center = row[x] & 0xff;
+                int dx = (row[x + 1] & 0xff) - center;
+                int dy = (nextRow[x] & 0xff) - center;
+                energy += dx * dx + dy * dy;
+                count++;
+            }
+        }
+        return (float) energy / count;
+    }
+
+    /**
+     *
+     * @return the sharpness of the last frame
+     */
+    public float getLastSharpness() {
+        synchronized (LOCK) {
+            return lastSharpness;
+        }
+    }
+
+    /**
+     *
+     * @return the recent average sharpness
+     */
+    public float getAverageSharpness() {
+        synchronized (LOCK) {
+            return averageSharpness;
+        }
+    }
+
+    /**
+     *
+     * @return the current threshold - frames with a lower sharpness are rejected
+     */
+    public float getThreshold() {
+        synchronized (LOCK) {
+            return averageSharpness * relativeThreshold;
+        }
+    }
+
+    public long getFrameCount() {
+        synchronized (LOCK) {
+            return frameCount;
+        }
+    }
+
+    public long getRejectedCount() {
+        synchronized (LOCK) {
+            return rejectedCount;
+        }
+    }
+
+    /**
+     *
+     * @return the number of accepted frames that were decoded successfully
+     */
+    public long getSuccessCount() {
+        synchronized (LOCK) {
+            return successCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "SharpnessGate{frames=" + frameCount + ", rejected=" + rejectedCount +
+                    ", successes=" + successCount + ", last=" + lastSharpness +
+                    ", threshold=" + averageSharpness * relativeThreshold + "}";
+        }
+    }
+}
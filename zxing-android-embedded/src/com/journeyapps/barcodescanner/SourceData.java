@@ -1,15 +1,14 @@
 package com.journeyapps.barcodescanner;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Matrix;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
-import android.graphics.YuvImage;
 
 import com.google.zxing.PlanarYUVLuminanceSource;
 import com.google.zxing.ResultPoint;
+import com.journeyapps.barcodescanner.camera.PreviewBufferPool;
 
-import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Raw preview data from a camera.
@@ -17,9 +16,11 @@ import java.io.ByteArrayOutputStream;
 public class SourceData {
     private RawImageData data;
 
-    /** The format of the image data. ImageFormat.NV21 and ImageFormat.YUY2 are supported. */
+    /** The format of the image data. ImageFormat.NV21, ImageFormat.YV12 and ImageFormat.YUY2 are supported. */
     private int imageFormat;
 
+    private YuvLayout layout;
+
     /** Rotation in degrees (0, 90, 180 or 270). This is camera rotation relative to display rotation. */
     private int rotation;
 
@@ -33,19 +34,46 @@ public class SourceData {
 
     private boolean previewMirrored;
 
+    /** Width to mirror result points against, if previewMirrored. */
+    private int mirrorWidth;
+
+    /** Capture time, in milliseconds since boot (SystemClock.elapsedRealtime()). 0 if unknown. */
+    private long timestamp;
+
+    /** The pool owning the data buffer, if any. */
+    private PreviewBufferPool bufferPool;
+
+    // Copy of the metadata of other, with different image data.
+    private SourceData(SourceData other, RawImageData data, int imageFormat, YuvLayout layout) {
+        this.data = data;
+        this.imageFormat = imageFormat;
+        this.layout = layout;
+        this.rotation = other.rotation;
+        this.cropRect = other.cropRect;
+        this.scalingFactor = other.scalingFactor;
+        this.previewMirrored = other.previewMirrored;
+        this.mirrorWidth = other.mirrorWidth;
+        this.timestamp = other.timestamp;
+    }
+
     /**
      *
-     * @param data the image data
+     * @param data the image data. This must at least contain the luminance; the chroma is only
+     *             required for color bitmaps.
      * @param dataWidth width of the data
      * @param dataHeight height of the data
-     * @param imageFormat ImageFormat.NV21 or ImageFormat.YUY2
+     * @param imageFormat ImageFormat.NV21, ImageFormat.YV12 or ImageFormat.YUY2
      * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270).
      */
     public SourceData(byte[] data, int dataWidth, int dataHeight, int imageFormat, int rotation) {
-        this.data = new RawImageData(data, dataWidth, dataHeight);
+        this.layout = YuvLayout.forFormat(imageFormat, dataWidth, dataHeight);
+        this.data = new RawImageData(data, dataWidth, dataHeight, layout.getLumaRowStride(), layout.getLumaPixelStride());
         this.rotation = rotation;
         this.imageFormat = imageFormat;
-        if (dataWidth * dataHeight > data.length) {
+        this.mirrorWidth = dataWidth;
+        // Only the luminance is required here. Chroma is only read by getBitmap().
+        int lumaSize = (dataHeight - 1) * layout.getLumaRowStride() + (dataWidth - 1) * layout.getLumaPixelStride() + 1;
+        if (lumaSize > data.length) {
             throw new IllegalArgumentException("Image data does not match the resolution. " + dataWidth + "x" + dataHeight + " > " + data.length);
         }
     }
@@ -79,10 +107,35 @@ public class SourceData {
         this.scalingFactor = scalingFactor;
     }
 
+    /**
+     *
+     * @return the capture time, in milliseconds since boot (SystemClock.elapsedRealtime()), or 0 if unknown
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Set the capture time.
+     *
+     * @param timestamp the capture time, in milliseconds since boot (SystemClock.elapsedRealtime())
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     public byte[] getData() {
         return data.getData();
     }
 
+    /**
+     *
+     * @return false if this SourceData only contains metadata, see copyWithoutImage()
+     */
+    public boolean hasImageData() {
+        return data.getData() != null;
+    }
+
     /**
      *
      * @return width of the data
@@ -103,11 +156,16 @@ public class SourceData {
         float x = point.getX() * this.scalingFactor + this.cropRect.left;
         float y = point.getY() * this.scalingFactor + this.cropRect.top;
         if (previewMirrored) {
-            x = data.getWidth() - x;
+            x = mirrorWidth - x;
         }
         return new ResultPoint(x, y);
     }
 
+    // True if the image data includes the chroma samples, and not just the luminance.
+    private boolean hasChromaData() {
+        return layout.hasChroma() && data.getData().length >= layout.getSize();
+    }
+
     /**
      *
      * @return true if the preview image is rotated orthogonal to the display
@@ -120,18 +178,201 @@ public class SourceData {
         return imageFormat;
     }
 
+    /**
+     *
+     * @return the memory layout of the image data
+     */
+    public YuvLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Set the pool that owns the data buffer. The buffer is returned to the pool on release().
+     *
+     * @param bufferPool the pool owning the data buffer
+     */
+    public void setBufferPool(PreviewBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Return the data buffer to its pool, if it came from one. This is a no-op otherwise.
+     *
+     * The image data must not be used after calling this, since the buffer may be overwritten by
+     * a subsequent preview frame. Only the owner of the SourceData (typically the DecoderThread)
+     * should call this. SourceData that is never released is simply garbage collected.
+     */
+    public void release() {
+        PreviewBufferPool pool = bufferPool;
+        if (pool != null) {
+            bufferPool = null;
+            pool.release(data.getData());
+        }
+    }
+
+    /**
+     * Create a copy containing only the metadata, without the image data.
+     *
+     * translateResultPoint() works as on the original, but getBitmap() returns null, and no
+     * LuminanceSource can be created.
+     *
+     * @return the copy
+     */
+    public SourceData copyWithoutImage() {
+        return new SourceData(this, new RawImageData(null, data.getWidth(), data.getHeight()), imageFormat, layout);
+    }
+
+    /**
+     * Create a compact copy of a region of the image, independent of the image data buffer.
+     *
+     * The copy has the same rotation, and is always in NV21 format. Its crop rectangle is offset so
+     * that translateResultPoint() gives coordinates relative to the copied region, which means it
+     * may extend outside the copied image. The region may be expanded slightly to align with
+     * chroma samples.
+     *
+     * For a mirrored preview, translateResultPoint() gives coordinates relative to the copied
+     * region in the mirrored image.
+     *
+     * @param region the region to copy, in display orientation
+     * @return the copy
+     */
+    public SourceData copyRegion(Rect region) {
+        int imageWidth = data.getWidth();
+        int imageHeight = data.getHeight();
+        int displayWidth = isRotated() ? imageHeight : imageWidth;
+        int displayHeight = isRotated() ? imageWidth : imageHeight;
+
+        int left = Math.max(0, region.left);
+        int top = Math.max(0, region.top);
+        int right = Math.min(displayWidth, region.right);
+        int bottom = Math.min(displayHeight, region.bottom);
+
+        // Region in camera orientation
+        int x0, y0, x1, y1;
+        switch (rotation) {
+            case 90:
+                x0 = top;
+                x1 = bottom;
+                y0 = imageHeight - right;
+                y1 = imageHeight - left;
+                break;
+            case 180:
+                x0 = imageWidth - right;
+                x1 = imageWidth - left;
+                y0 = imageHeight - bottom;
+                y1 = imageHeight - top;
+                break;
+            case 270:
+                x0 = imageWidth - bottom;
+                x1 = imageWidth - top;
+                y0 = left;
+                y1 = right;
+                break;
+            case 0:
+            default:
+                x0 = left;
+                x1 = right;
+                y0 = top;
+                y1 = bottom;
+                break;
+        }
+
+        // Align to chroma samples, which cover 2x2 pixels.
+        x0 &= ~1;
+        y0 &= ~1;
+        x1 = Math.min(imageWidth & ~1, (x1 + 1) & ~1);
+        y1 = Math.min(imageHeight & ~1, (y1 + 1) & ~1);
+        int width = x1 - x0;
+        int height = y1 - y0;
+        if (width <= 0 || height <= 0) {
+            return copyWithoutImage();
+        }
+
+        YuvLayout copyLayout = YuvLayout.forFormat(ImageFormat.NV21, width, height);
+        byte[] yuv = data.getData();
+        byte[] copy = new byte[copyLayout.getSize()];
+
+        RawImageData.transform(yuv, y0 * data.getRowStride() + x0 * data.getPixelStride(), data.getPixelStride(), data.getRowStride(), width, height, copy);
+
+        int vuOffset = width * height;
+        boolean hasChroma = hasChromaData();
+        for (int y = 0; y < height; y += 2) {
+            int chromaRow = ((y0 + y) >> layout.getChromaRowShift()) * layout.getChromaRowStride();
+            int outputOffset = vuOffset + (y / 2) * width;
+            for (int x = 0; x < width; x += 2) {
+                if (hasChroma) {
+                    int chromaIndex = chromaRow + ((x0 + x) >> 1) * layout.getChromaPixelStride();
+                    copy[outputOffset + x] = yuv[layout.getVOffset() + chromaIndex];
+                    copy[outputOffset + x + 1] = yuv[layout.getUOffset() + chromaIndex];
+                } else {
+                    copy[outputOffset + x] = (byte) 128;
+                    copy[outputOffset + x + 1] = (byte) 128;
+                }
+            }
+        }
+
+        // Top-left of the copied region, in display orientation
+        int regionLeft, regionTop;
+        switch (rotation) {
+            case 90:
+                regionLeft = imageHeight - y1;
+                regionTop = x0;
+                break;
+            case 180:
+                regionLeft = imageWidth - x1;
+                regionTop = imageHeight - y1;
+                break;
+            case 270:
+                regionLeft = y0;
+                regionTop = imageWidth - x1;
+                break;
+            case 0:
+            default:
+                regionLeft = x0;
+                regionTop = y0;
+                break;
+        }
+
+        SourceData result = new SourceData(this, new RawImageData(copy, width, height), ImageFormat.NV21, copyLayout);
+        if (cropRect != null) {
+            result.cropRect = new Rect(cropRect.left - regionLeft, cropRect.top - regionTop,
+                    cropRect.right - regionLeft, cropRect.bottom - regionTop);
+        }
+        if (previewMirrored) {
+            // Mirror within the copied region, so that points are relative to the region as it
+            // appears in the mirrored image, independent of the width of the full image.
+            result.mirrorWidth = isRotated() ? height : width;
+        }
+        return result;
+    }
+
     public PlanarYUVLuminanceSource createSource() {
-        RawImageData rotated = this.data.rotateCameraPreview(rotation);
-        RawImageData scaled = rotated.cropAndScale(this.cropRect, this.scalingFactor);
+        RawImageData scaled = this.data.rotateCropAndScale(rotation, this.cropRect, this.scalingFactor);
 
         // not the preview for decoding.
         return new PlanarYUVLuminanceSource(scaled.getData(), scaled.getWidth(), scaled.getHeight(), 0, 0, scaled.getWidth(), scaled.getHeight(), false);
     }
 
+    /**
+     * Create a LuminanceSource for the crop rectangle, reading directly from the image data.
+     *
+     * Unlike createSource(), nothing is copied up front. The result is equivalent to that of
+     * createSource().
+     *
+     * The image data must not be released while the LuminanceSource is in use.
+     *
+     * @return the LuminanceSource
+     */
+    public RotatedLuminanceSource createLuminanceSource() {
+        // Like createSource(), the image is not mirrored here - that is done in translateResultPoint().
+        return new RotatedLuminanceSource(data, rotation, false,
+                cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), scalingFactor);
+    }
+
     /**
      * Return the source bitmap (cropped; in display orientation).
      *
-     * @return the bitmap
+     * @return the bitmap, or null if there is no image data
      */
     public Bitmap getBitmap() {
         return getBitmap(1);
@@ -140,39 +381,193 @@ public class SourceData {
     /**
      * Return the source bitmap (cropped; in display orientation).
      *
-     * @param scaleFactor factor to scale down by. Must be a power of 2.
+     * @param scaleFactor factor to scale down by.
      * @return the bitmap
      */
     public Bitmap getBitmap(int scaleFactor) {
         return getBitmap(cropRect, scaleFactor);
     }
 
+    /**
+     * Return the source bitmap (in display orientation).
+     *
+     * @param cropRect the crop rectangle, in display orientation. If null, the full image is used.
+     * @param scaleFactor factor to scale down by.
+     * @return the bitmap
+     */
     public Bitmap getBitmap(Rect cropRect, int scaleFactor) {
-        if (cropRect == null) {
-            cropRect = new Rect(0, 0, data.getWidth(), data.getHeight());
-        } else if (isRotated()) {
-            //noinspection SuspiciousNameCombination
-            cropRect = new Rect(cropRect.top, cropRect.left, cropRect.bottom, cropRect.right);
-        }
+        return getBitmap(cropRect, scaleFactor, Bitmap.Config.ARGB_8888, null);
+    }
 
-        // TODO: there should be a way to do this without JPEG compression / decompression cycle.
-        YuvImage img = new YuvImage(data.getData(), imageFormat, data.getWidth(), data.getHeight(), null);
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        img.compressToJpeg(cropRect, 90, buffer);
-        byte[] jpegData = buffer.toByteArray();
+    /**
+     * Return the source bitmap (in display orientation).
+     *
+     * The image data is converted directly, cropping, scaling and rotating in a single pass.
+     *
+     * The crop rectangle is in display orientation, like the crop rectangle of this SourceData.
+     * Before this was converted directly, the rectangle was only transposed for rotated images,
+     * which gave a different region unless it was centered in the image.
+     *
+     * @param cropRect the crop rectangle, in display orientation. If null, the full image is used.
+     * @param scaleFactor factor to scale down by.
+     * @param config Bitmap.Config.ARGB_8888 for a color image, or Bitmap.Config.ALPHA_8 for the
+     *               luminance only. ARGB_8888 requires the full image data including chroma.
+     * @param reuse if not null, the image is written into this bitmap, which must be mutable and
+     *              have the correct size and config.
+     * @return the bitmap
+     */
+    public Bitmap getBitmap(Rect cropRect, int scaleFactor, Bitmap.Config config, Bitmap reuse) {
+        if (config != Bitmap.Config.ARGB_8888 && config != Bitmap.Config.ALPHA_8) {
+            throw new IllegalArgumentException("Unsupported bitmap config: " + config);
+        }
+        if (!hasImageData()) {
+            return null;
+        }
 
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inSampleSize = scaleFactor;
-        Bitmap bitmap = BitmapFactory.decodeByteArray(jpegData, 0, jpegData.length, options);
+        int left = 0;
+        int top = 0;
+        int width = isRotated() ? data.getHeight() : data.getWidth();
+        int height = isRotated() ? data.getWidth() : data.getHeight();
+        if (cropRect != null) {
+            left = cropRect.left;
+            top = cropRect.top;
+            width = cropRect.width();
+            height = cropRect.height();
+        }
+        width /= scaleFactor;
+        height /= scaleFactor;
+
+        Bitmap bitmap = reuse;
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, config);
+        } else if (!bitmap.isMutable() || bitmap.getConfig() != config || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            throw new IllegalArgumentException("Bitmap must be mutable, with config " + config + " and size " + width + "x" + height);
+        }
 
-        // Rotate if required
-        if (rotation != 0) {
-            Matrix imageMatrix = new Matrix();
-            imageMatrix.postRotate(rotation);
-            bitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), imageMatrix, false);
+        int[] transform = cameraTransform(left, top, scaleFactor);
+        if (config == Bitmap.Config.ALPHA_8) {
+            int rowBytes = bitmap.getRowBytes();
+            byte[] pixels = new byte[rowBytes * height];
+            for (int y = 0; y < height; y++) {
+                getLuminanceRow(transform, y, width, pixels, y * rowBytes);
+            }
+            bitmap.copyPixelsFromBuffer(ByteBuffer.wrap(pixels));
+        } else {
+            int[] row = new int[width];
+            boolean color = layout.hasChroma();
+            if (color && !hasChromaData()) {
+                throw new IllegalStateException("Image data does not include chroma, use Bitmap.Config.ALPHA_8");
+            }
+            for (int y = 0; y < height; y++) {
+                getArgbRow(transform, y, width, color, row);
+                bitmap.setPixels(row, 0, width, 0, y, width, 1);
+            }
         }
 
         return bitmap;
     }
 
+    /**
+     * Get the transform from output pixels to camera pixels, for a crop rectangle in display
+     * orientation.
+     *
+     * Camera coordinates of output pixel (x, y) are:
+     *   cameraX = startX + x * xStepX + y * yStepX
+     *   cameraY = startY + x * xStepY + y * yStepY
+     *
+     * @param left left of the crop rectangle, in display orientation
+     * @param top top of the crop rectangle, in display orientation
+     * @param scaleFactor factor to scale down by
+     * @return {startX, startY, xStepX, xStepY, yStepX, yStepY}
+     */
+    int[] cameraTransform(int left, int top, int scaleFactor) {
+        int imageWidth = data.getWidth();
+        int imageHeight = data.getHeight();
+        switch (rotation) {
+            case 90:
+                return new int[]{top, imageHeight - 1 - left, 0, -scaleFactor, scaleFactor, 0};
+            case 180:
+                return new int[]{imageWidth - 1 - left, imageHeight - 1 - top, -scaleFactor, 0, 0, -scaleFactor};
+            case 270:
+                return new int[]{imageWidth - 1 - top, left, 0, scaleFactor, -scaleFactor, 0};
+            case 0:
+            default:
+                return new int[]{left, top, scaleFactor, 0, 0, scaleFactor};
+        }
+    }
+
+    /**
+     * Read a row of luminance values.
+     *
+     * @param transform the transform from cameraTransform()
+     * @param y the output row
+     * @param width the number of output pixels
+     * @param out receives the luminance values
+     * @param offset the offset in out
+     */
+    void getLuminanceRow(int[] transform, int y, int width, byte[] out, int offset) {
+        byte[] yuv = data.getData();
+        int rowStride = layout.getLumaRowStride();
+        int pixelStride = layout.getLumaPixelStride();
+        int cameraX = transform[0] + y * transform[4];
+        int cameraY = transform[1] + y * transform[5];
+        for (int x = 0; x < width; x++) {
+            out[offset + x] = yuv[cameraY * rowStride + cameraX * pixelStride];
+            cameraX += transform[2];
+            cameraY += transform[3];
+        }
+    }
+
+    /**
+     * Read a row of ARGB colors.
+     *
+     * @param transform the transform from cameraTransform()
+     * @param y the output row
+     * @param width the number of output pixels
+     * @param color false to only use the luminance
+     * @param row receives the colors
+     */
+    void getArgbRow(int[] transform, int y, int width, boolean color, int[] row) {
+        byte[] yuv = data.getData();
+        int rowStride = layout.getLumaRowStride();
+        int pixelStride = layout.getLumaPixelStride();
+        int uOffset = layout.getUOffset();
+        int vOffset = layout.getVOffset();
+        int chromaRowStride = layout.getChromaRowStride();
+        int chromaPixelStride = layout.getChromaPixelStride();
+        int chromaRowShift = layout.getChromaRowShift();
+        int cameraX = transform[0] + y * transform[4];
+        int cameraY = transform[1] + y * transform[5];
+        for (int x = 0; x < width; x++) {
+            int luminance = yuv[cameraY * rowStride + cameraX * pixelStride] & 0xff;
+            if (color) {
+                int chromaIndex = (cameraY >> chromaRowShift) * chromaRowStride + (cameraX >> 1) * chromaPixelStride;
+                row[x] = yuvToArgb(luminance, (yuv[uOffset + chromaIndex] & 0xff) - 128, (yuv[vOffset + chromaIndex] & 0xff) - 128);
+            } else {
+                row[x] = 0xff000000 | (luminance << 16) | (luminance << 8) | luminance;
+            }
+            cameraX += transform[2];
+            cameraY += transform[3];
+        }
+    }
+
+    /**
+     * Convert a single YUV (BT.601, full range) pixel to ARGB.
+     *
+     * @param y luminance, 0 to 255
+     * @param u blue chroma, -128 to 127
+     * @param v red chroma, -128 to 127
+     * @return the ARGB color
+     */
+    private static int yuvToArgb(int y, int u, int v) {
+        // Fixed-point, with a factor of 1024.
+        int r = y + ((1436 * v) >> 10);
+        int g = y - ((352 * u + 731 * v) >> 10);
+        int b = y + ((1815 * u) >> 10);
+        r = r < 0 ? 0 : (r > 255 ? 255 : r);
+        g = g < 0 ? 0 : (g > 255 ? 255 : g);
+        b = b < 0 ? 0 : (b > 255 ? 255 : b);
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+
 }
@@ -0,0 +1,154 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * FrameGate that skips frames when the scene did not change since the last failed decode, for
+ * example when the camera points at an empty counter.
+ *
+ * A tiny signature of the frame is computed from block averages of a few sampled rows. A frame is
+ * skipped if its signature differs from that of the last decoded frame by less than a threshold,
+ * and decoding that frame failed. Once the scene changes, the next frame is decoded.
+ *
+ * Frames are decoded after at most maxSkippedFrames consecutive skips regardless, so that slow
+ * changes like refocusing are not missed forever.
+ */
+public class StaticSceneGate implements FrameGate {
+    public static final int DEFAULT_THRESHOLD = 6;
+    public static final int DEFAULT_MAX_SKIPPED_FRAMES = 60;
+
+    // Width and height of the signature, in blocks.
+    private static final int SIZE = 16;
+
+    // Number of pixels sampled per block, per row.
+    private static final int BLOCK_SAMPLES = 4;
+
+    private final int threshold;
+    private final int maxSkippedFrames;
+
+    private final Object LOCK = new Object();
+    private final int[] lastSignature = new int[SIZE * SIZE];
+    private boolean hasSignature = false;
+    private boolean lastFailed = false;
+    private int consecutiveSkipped = 0;
+    private int lastDifference = 0;
+    private long frameCount = 0;
+    private long skippedCount = 0;
+
+    public StaticSceneGate() {
+        this(DEFAULT_THRESHOLD, DEFAULT_MAX_SKIPPED_FRAMES);
+    }
+
+    /**
+     *
+     * @param threshold the mean absolute difference in luminance (0-255) below which a scene is
+     *                  considered unchanged
+     * @param maxSkippedFrames decode a frame after this many consecutive skipped frames
+     */
+    public StaticSceneGate(int threshold, int maxSkippedFrames) {
+        this.threshold = threshold;
+        this.maxSkippedFrames = maxSkippedFrames;
+    }
+
+    @Override
+    public boolean accept(LuminanceSource source) {
+        int[] signature = signature(source);
+        synchronized (LOCK) {
+            frameCount++;
+            if (hasSignature) {
+                lastDifference = difference(lastSignature, signature);
+                if (lastFailed && lastDifference < threshold && consecutiveSkipped < maxSkippedFrames) {
+                    consecutiveSkipped++;
+                    skippedCount++;
+                    return false;
+                }
+            }
+            consecutiveSkipped = 0;
+            System.arraycopy(signature, 0, lastSignature, 0, signature.length);
+            hasSignature = true;
+            // Until we know otherwise, don't skip the next frame.
+            lastFailed = false;
+            return true;
+        }
+    }
+
+    @Override
+    public void decodeFinished(boolean success) {
+        synchronized (LOCK) {
+            lastFailed = !success;
+        }
+    }
+
+    /**
+     * Compute the signature of an image: the average luminance of SIZE x SIZE blocks, using the
+     * center row of each block.
+     *
+     * @param source the image source
+     * @return the signature
+     */
+    static int[] signature(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] signature = new int[SIZE * SIZE];
+        byte[] row = null;
+        for (int by = 0; by < SIZE; by++) {
+            int y = Math.min(height - 1, (2 * by + 1) * height / (2 * SIZE));
+            row = source.getRow(y, row);
+            for (int bx = 0; bx < SIZE; bx++) {
+                int left = bx * width / SIZE;
+                int right = Math.max(left + 1, (bx + 1) * width / SIZE);
+                int step = Math.max(1, (right - left) / BLOCK_SAMPLES);
+                int sum = 0;
+                int count = 0;
+                for (int x = left; x < right && x < width; x += step) {
+                    sum += row[x] & 0xff;
+                    count++;
+                }
+                signature[by * SIZE + bx] = count == 0 ? 0 : sum / count;
+            }
+        }
+        return signature;
+    }
+
+    /**
+     *
+     * @return the mean absolute difference between two signatures
+     */
+    static int difference(int[] a, int[] b) {
+        int total = 0;
+        for (int i = 0; i < a.length; i++) {
+            total += Math.abs(a[i] - b[i]);
+        }
+        return total / a.length;
+    }
+
+    /**
+     *
+     * @return the difference between the last frame and the last decoded frame
+     */
+    public int getLastDifference() {
+        synchronized (LOCK) {
+            return lastDifference;
+        }
+    }
+
+    public long getFrameCount() {
+        synchronized (LOCK) {
+            return frameCount;
+        }
+    }
+
+    public long getSkippedCount() {
+        synchronized (LOCK) {
+            return skippedCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "StaticSceneGate{frames=" + frameCount + ", skipped=" + skippedCount +
+                    ", lastDifference=" + lastDifference + "}";
+        }
+    }
+}
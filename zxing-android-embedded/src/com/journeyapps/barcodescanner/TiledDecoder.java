@@ -0,0 +1,316 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decoder that splits the image into overlapping tiles, and decodes the tiles in parallel.
+ *
+ * Tiles are twice the minimum barcode size, and overlap by the minimum barcode size, so that any
+ * barcode up to that size is fully contained in at least one tile. The full image is decoded as
+ * well, for barcodes larger than a tile.
+ *
+ * This helps with small or off-center barcodes in a large crop rectangle, since HybridBinarizer
+ * and the detectors do better on a region around the barcode. Result points are translated back
+ * to the coordinates of the full image.
+ *
+ * The tiles are decoded on a shared thread pool, sized to the number of processors. Each tile
+ * uses a MultiFormatReader from a pool, so the decoder may be used from a single thread, as with
+ * any other Decoder.
+ */
+public class TiledDecoder extends Decoder {
+    private static ExecutorService sharedExecutor;
+
+    private final Map<DecodeHintType, ?> hints;
+    private final int minBarcodeSize;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<TileReader> readers = new ConcurrentLinkedQueue<>();
+    private final List<ResultPoint> tilePossibleResultPoints = new ArrayList<>();
+
+    /**
+     * A reader with a callback translating result points from tile coordinates.
+     */
+    private class TileReader implements ResultPointCallback {
+        private final MultiFormatReader reader = new MultiFormatReader();
+        private int left;
+        private int top;
+
+        TileReader() {
+            Map<DecodeHintType, Object> tileHints = new EnumMap<>(DecodeHintType.class);
+            tileHints.putAll(hints);
+            if (hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+                tileHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, this);
+            }
+            reader.setHints(tileHints);
+        }
+
+        @Override
+        public void foundPossibleResultPoint(ResultPoint point) {
+            synchronized (tilePossibleResultPoints) {
+                tilePossibleResultPoints.add(new ResultPoint(point.getX() + left, point.getY() + top));
+            }
+        }
+    }
+
+    /**
+     * Create a TiledDecoder using the shared thread pool.
+     *
+     * @param hints hints for the MultiFormatReaders
+     * @param minBarcodeSize minimum size of a barcode, in pixels of the LuminanceSource
+     */
+    public TiledDecoder(Map<DecodeHintType, ?> hints, int minBarcodeSize) {
+        this(hints, minBarcodeSize, getSharedExecutor());
+    }
+
+    /**
+     *
+     * @param hints hints for the MultiFormatReaders
+     * @param minBarcodeSize minimum size of a barcode, in pixels of the LuminanceSource
+     * @param executor the executor to decode tiles on
+     */
+    public TiledDecoder(Map<DecodeHintType, ?> hints, int minBarcodeSize, ExecutorService executor) {
+        // Tiles are decoded with the readers of the pool, not with a reader of the Decoder.
+        super(null);
+        if (minBarcodeSize < 1) {
+            throw new IllegalArgumentException("minBarcodeSize must be at least 1");
+        }
+        this.hints = hints;
+        this.minBarcodeSize = minBarcodeSize;
+        this.executor = executor;
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            // Not a work-stealing pool, since those require API 21+. Idle threads time out.
+            int threads = Runtime.getRuntime().availableProcessors();
+            final AtomicInteger count = new AtomicInteger();
+            ThreadFactory threadFactory = new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "TiledDecoder-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+            executor.allowCoreThreadTimeOut(true);
+            sharedExecutor = executor;
+        }
+        return sharedExecutor;
+    }
+
+    public int getMinBarcodeSize() {
+        return minBarcodeSize;
+    }
+
+    /**
+     * Get the start positions of tiles along one dimension, evenly spread.
+     *
+     * @param length the length of the image
+     * @param tileSize the length of a tile
+     * @param step the maximum distance between the starts of two tiles
+     * @return the start positions
+     */
+    static int[] tileOrigins(int length, int tileSize, int step) {
+        if (length <= tileSize) {
+            return new int[]{0};
+        }
+        int count = (length - tileSize + step - 1) / step + 1;
+        int[] origins = new int[count];
+        for (int i = 0; i < count; i++) {
+            origins[i] = (int) ((long) i * (length - tileSize) / (count - 1));
+        }
+        return origins;
+    }
+
+    /**
+     * Decode the first barcode found in the image or any tile.
+     *
+     * @param source the image source
+     * @return a Result or null
+     */
+    @Override
+    public Result decode(LuminanceSource source) {
+        List<Result> results = decode(source, true);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Decode all barcodes found in the image or any of the tiles.
+     *
+     * A barcode found in multiple tiles is only returned once.
+     *
+     * @param source the image source
+     * @return the results, possibly empty
+     */
+    public List<Result> decodeAll(LuminanceSource source) {
+        return decode(source, false);
+    }
+
+    @Override
+    public List<Result> decodeMultiple(LuminanceSource source) {
+        return decodeAll(source);
+    }
+
+    private List<Result> decode(final LuminanceSource source, boolean firstOnly) {
+        synchronized (tilePossibleResultPoints) {
+            tilePossibleResultPoints.clear();
+        }
+        List<Result> results = new ArrayList<>();
+        if (!source.isCropSupported()) {
+            Result result = decodeTile(source, 0, 0);
+            if (result != null) {
+                results.add(result);
+            }
+            return results;
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int tileSize = 2 * minBarcodeSize;
+
+        // Tiles read the LuminanceSource, which is a view on the preview buffer. That buffer is
+        // reused once decode() returns, so all tiles must be done by then. Once a result is found,
+        // tiles that didn't start yet return right away, instead of being cancelled.
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        ExecutorCompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        int count = 0;
+        // The full image first, for large barcodes.
+        completionService.submit(new TileTask(source, 0, 0, finished));
+        count++;
+        if (width > tileSize || height > tileSize) {
+            int tileWidth = Math.min(tileSize, width);
+            int tileHeight = Math.min(tileSize, height);
+            for (int top : tileOrigins(height, tileSize, minBarcodeSize)) {
+                for (int left : tileOrigins(width, tileSize, minBarcodeSize)) {
+                    completionService.submit(new TileTask(source.crop(left, top, tileWidth, tileHeight), left, top, finished));
+                    count++;
+                }
+            }
+        }
+
+        // Results are keyed by format and text, to skip the same barcode found in multiple tiles.
+        Map<String, Result> unique = new LinkedHashMap<>();
+        boolean interrupted = false;
+        for (int i = 0; i < count; i++) {
+            Result result;
+            try {
+                result = completionService.take().get();
+            } catch (InterruptedException e) {
+                // Keep waiting for the tiles, and restore the interrupt afterwards.
+                interrupted = true;
+                finished.set(true);
+                i--;
+                continue;
+            } catch (ExecutionException e) {
+                // decodeTile() doesn't throw, so this is unexpected.
+                result = null;
+            }
+            if (result != null) {
+                unique.put(result.getBarcodeFormat() + ":" + result.getText(), result);
+                if (firstOnly) {
+                    finished.set(true);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        results.addAll(unique.values());
+        return results;
+    }
+
+    /**
+     * Decodes a tile, unless the frame is already finished.
+     */
+    private class TileTask implements Callable<Result> {
+        private final LuminanceSource tile;
+        private final int left;
+        private final int top;
+        private final AtomicBoolean finished;
+
+        TileTask(LuminanceSource tile, int left, int top, AtomicBoolean finished) {
+            this.tile = tile;
+            this.left = left;
+            this.top = top;
+            this.finished = finished;
+        }
+
+        @Override
+        public Result call() {
+            if (finished.get()) {
+                return null;
+            }
+            return decodeTile(tile, left, top);
+        }
+    }
+
+    private Result decodeTile(LuminanceSource tile, int left, int top) {
+        TileReader tileReader = readers.poll();
+        if (tileReader == null) {
+            tileReader = new TileReader();
+        }
+        tileReader.left = left;
+        tileReader.top = top;
+        try {
+            BinaryBitmap bitmap = toBitmap(tile);
+            Result result = tileReader.reader.decodeWithState(bitmap);
+            return translate(result, left, top);
+        } catch (Exception e) {
+            return null;
+        } finally {
+            tileReader.reader.reset();
+            readers.add(tileReader);
+        }
+    }
+
+    private static Result translate(Result result, int left, int top) {
+        if (left == 0 && top == 0) {
+            return result;
+        }
+        ResultPoint[] points = result.getResultPoints();
+        ResultPoint[] translated = null;
+        if (points != null) {
+            translated = new ResultPoint[points.length];
+            for (int i = 0; i < points.length; i++) {
+                if (points[i] != null) {
+                    translated[i] = new ResultPoint(points[i].getX() + left, points[i].getY() + top);
+                }
+            }
+        }
+        Result copy = new Result(result.getText(), result.getRawBytes(), result.getNumBits(), translated,
+                result.getBarcodeFormat(), result.getTimestamp());
+        copy.putAllMetadata(result.getResultMetadata());
+        return copy;
+    }
+
+    @Override
+    public List<ResultPoint> getPossibleResultPoints() {
+        synchronized (tilePossibleResultPoints) {
+            return new ArrayList<>(tilePossibleResultPoints);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoder that abandons a frame once it takes longer than a time budget.
+ *
+ * The work of MultiFormatReader is split into stages: binarization, each reader in the same order
+ * as MultiFormatReader, and with TRY_HARDER the rotated image for 1D barcodes. The deadline is
+ * checked between stages, so a frame is abandoned after the stage that exceeds the budget, and the
+ * next frame can be decoded. A single stage can't be interrupted.
+ */
+public class TimeBudgetDecoder extends Decoder {
+    private final Map<DecodeHintType, ?> hints;
+    private final long budgetNanos;
+    private final boolean tryHarder;
+    private final Reader oneDReader;
+    private final List<Reader> readers = new ArrayList<>();
+    private final FrameBudgetStats stats;
+
+    /**
+     * LuminanceSource that doesn't support rotation, so that OneDReader doesn't try the rotated
+     * image itself.
+     */
+    private static class NonRotatingSource extends LuminanceSource {
+        private final LuminanceSource delegate;
+
+        NonRotatingSource(LuminanceSource delegate) {
+            super(delegate.getWidth(), delegate.getHeight());
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            return delegate.getRow(y, row);
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            return delegate.getMatrix();
+        }
+    }
+
+    /**
+     *
+     * @param hints the hints, as for MultiFormatReader
+     * @param budgetMillis the time budget per frame, in milliseconds
+     */
+    public TimeBudgetDecoder(Map<DecodeHintType, ?> hints, long budgetMillis) {
+        this(hints, budgetMillis, new FrameBudgetStats());
+    }
+
+    /**
+     *
+     * @param hints the hints, as for MultiFormatReader
+     * @param budgetMillis the time budget per frame, in milliseconds
+     * @param stats the frame counts, possibly shared with other decoders
+     */
+    public TimeBudgetDecoder(Map<DecodeHintType, ?> hints, long budgetMillis, FrameBudgetStats stats) {
+        super(createReader(hints));
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budgetMillis must not be negative");
+        }
+        this.hints = hints;
+        this.stats = stats;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.tryHarder = hints.containsKey(DecodeHintType.TRY_HARDER);
+
+        // The same readers in the same order as MultiFormatReader.
+        @SuppressWarnings("unchecked")
+        Collection<BarcodeFormat> formats = (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        boolean all = formats == null || formats.isEmpty();
+        boolean oneD = all || ScanlineDecoder.containsOneDimensional(formats);
+        oneDReader = oneD ? new MultiFormatOneDReader(hints) : null;
+        if (oneD && !tryHarder) {
+            readers.add(oneDReader);
+        }
+        if (all || formats.contains(BarcodeFormat.QR_CODE)) {
+            readers.add(new QRCodeReader());
+        }
+        if (all || formats.contains(BarcodeFormat.DATA_MATRIX)) {
+            readers.add(new DataMatrixReader());
+        }
+        if (all || formats.contains(BarcodeFormat.AZTEC)) {
+            readers.add(new AztecReader());
+        }
+        if (all || formats.contains(BarcodeFormat.PDF_417)) {
+            readers.add(new PDF417Reader());
+        }
+        if (all || formats.contains(BarcodeFormat.MAXICODE)) {
+            readers.add(new MaxiCodeReader());
+        }
+        if (oneD && tryHarder) {
+            readers.add(oneDReader);
+        }
+    }
+
+    private static MultiFormatReader createReader(Map<DecodeHintType, ?> hints) {
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(hints);
+        return reader;
+    }
+
+    @Override
+    public Result decode(LuminanceSource source) {
+        clearPossibleResultPoints();
+        stats.recordFrame();
+        long deadline = System.nanoTime() + budgetNanos;
+        BinaryBitmap bitmap = toBitmap(source);
+        boolean binarized = false;
+        boolean first = true;
+        try {
+            for (Reader reader : readers) {
+                if (reader != oneDReader && !binarized) {
+                    // Binarize as a stage of its own. The 2D readers share the black matrix.
+                    if (!first && expired(deadline)) {
+                        return null;
+                    }
+                    first = false;
+                    try {
+                        bitmap.getBlackMatrix();
+                    } catch (NotFoundException e) {
+                        return null;
+                    }
+                    binarized = true;
+                }
+                if (!first && expired(deadline)) {
+                    return null;
+                }
+                first = false;
+                Result result = reader == oneDReader ? decodeOneD(source, bitmap, deadline) : decode(reader, bitmap);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        } finally {
+            for (Reader reader : readers) {
+                reader.reset();
+            }
+        }
+    }
+
+    private Result decodeOneD(LuminanceSource source, BinaryBitmap bitmap, long deadline) {
+        if (!tryHarder || !source.isRotateSupported()) {
+            return decode(oneDReader, bitmap);
+        }
+        // Without rotation here; the rotated image is a separate stage.
+        Result result = decode(oneDReader, toBitmap(new NonRotatingSource(source)));
+        if (result != null || expired(deadline)) {
+            return result;
+        }
+        LuminanceSource rotated = source.rotateCounterClockwise();
+        result = decode(oneDReader, toBitmap(new NonRotatingSource(rotated)));
+        if (result != null) {
+            rotateResult(result, rotated.getHeight());
+        }
+        return result;
+    }
+
+    // The same as OneDReader does for the rotated image.
+    private static void rotateResult(Result result, int rotatedHeight) {
+        Map<ResultMetadataType, ?> metadata = result.getResultMetadata();
+        int orientation = 270;
+        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+            orientation = (orientation + (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+        }
+        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+        ResultPoint[] points = result.getResultPoints();
+        if (points != null) {
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new ResultPoint(rotatedHeight - points[i].getY() - 1, points[i].getX());
+            }
+        }
+    }
+
+    private Result decode(Reader reader, BinaryBitmap bitmap) {
+        try {
+            return reader.decode(bitmap, hints);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private boolean expired(long deadline) {
+        if (System.nanoTime() - deadline < 0) {
+            return false;
+        }
+        stats.recordAbandoned();
+        return true;
+    }
+
+    /**
+     *
+     * @return the time budget per frame, in milliseconds
+     */
+    public long getBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(budgetNanos);
+    }
+
+    public FrameBudgetStats getStats() {
+        return stats;
+    }
+
+    /**
+     *
+     * @return the number of frames abandoned because they exceeded the budget, by all decoders
+     *         sharing the stats
+     */
+    public long getAbandonedFrameCount() {
+        return stats.getAbandonedFrameCount();
+    }
+}
@@ -0,0 +1,77 @@
+package com.journeyapps.barcodescanner;
+
+/**
+ * Decides which frames CascadeDecoder decodes with TRY_HARDER: every interval-th frame, and one
+ * frame after every missesBeforeEscalation consecutive frames without a result.
+ *
+ * DefaultDecoderFactory gives all its decoders the same schedule, so an escalation is due after
+ * missesBeforeEscalation misses in total, not per decoder thread.
+ */
+public class TryHarderSchedule {
+    private final int interval;
+    private final int missesBeforeEscalation;
+    private final Object LOCK = new Object();
+    // Guarded by LOCK.
+    private long frameCount = 0;
+    private int misses = 0;
+
+    /**
+     *
+     * @param interval decode every interval-th frame with TRY_HARDER, or 0 to only escalate after
+     *                 misses
+     * @param missesBeforeEscalation decode one frame with TRY_HARDER after every this many
+     *                               consecutive frames without a result, or 0 to only escalate
+     *                               periodically
+     */
+    public TryHarderSchedule(int interval, int missesBeforeEscalation) {
+        if (interval < 0 || missesBeforeEscalation < 0) {
+            throw new IllegalArgumentException("Invalid interval or misses");
+        }
+        this.interval = interval;
+        this.missesBeforeEscalation = missesBeforeEscalation;
+    }
+
+    /**
+     * Decide whether the next frame is decoded with TRY_HARDER.
+     *
+     * @return true for TRY_HARDER
+     */
+    public boolean nextFrameThorough() {
+        synchronized (LOCK) {
+            frameCount++;
+            if (missesBeforeEscalation > 0 && misses >= missesBeforeEscalation) {
+                // Escalate once, then count the misses again.
+                misses = 0;
+                return true;
+            }
+            return interval > 0 && frameCount % interval == 0;
+        }
+    }
+
+    /**
+     * Record the outcome of a frame.
+     *
+     * @param success true if a barcode was decoded
+     */
+    public void recordResult(boolean success) {
+        synchronized (LOCK) {
+            misses = success ? 0 : misses + 1;
+        }
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getMissesBeforeEscalation() {
+        return missesBeforeEscalation;
+    }
+
+    @Override
+    public String toString() {
+        synchronized (LOCK) {
+            return "TryHarderSchedule{interval=" + interval + ", missesBeforeEscalation="
+                    + missesBeforeEscalation + ", frameCount=" + frameCount + ", misses=" + misses + '}';
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.journeyapps.barcodescanner;
+
+import android.graphics.ImageFormat;
+
+/**
+ * Memory layout of a camera preview frame.
+ *
+ * ImageFormat.NV21, ImageFormat.YV12 and ImageFormat.YUY2 are supported. Any other format is
+ * treated as a compact luminance plane, followed by unknown chroma data.
+ *
+ * Luminance of pixel (x, y) is at y * lumaRowStride + x * lumaPixelStride.
+ *
+ * Chroma samples are shared by 2 horizontally adjacent pixels, and by 2 vertically adjacent pixels
+ * if chromaRowShift is 1. The U sample for pixel (x, y) is at
+ * uOffset + (y >> chromaRowShift) * chromaRowStride + (x >> 1) * chromaPixelStride, and likewise
+ * for V.
+ */
+public final class YuvLayout {
+    private final int imageFormat;
+    private final int size;
+    private final int lumaRowStride;
+    private final int lumaPixelStride;
+    private final boolean hasChroma;
+    private final int uOffset;
+    private final int vOffset;
+    private final int chromaRowStride;
+    private final int chromaPixelStride;
+    private final int chromaRowShift;
+
+    private YuvLayout(int imageFormat, int size, int lumaRowStride, int lumaPixelStride, boolean hasChroma,
+                      int uOffset, int vOffset, int chromaRowStride, int chromaPixelStride, int chromaRowShift) {
+        this.imageFormat = imageFormat;
+        this.size = size;
+        this.lumaRowStride = lumaRowStride;
+        this.lumaPixelStride = lumaPixelStride;
+        this.hasChroma = hasChroma;
+        this.uOffset = uOffset;
+        this.vOffset = vOffset;
+        this.chromaRowStride = chromaRowStride;
+        this.chromaPixelStride = chromaPixelStride;
+        this.chromaRowShift = chromaRowShift;
+    }
+
+    /**
+     *
+     * @param imageFormat the ImageFormat
+     * @return true if the layout of the format is known, including chroma
+     */
+    public static boolean isSupported(int imageFormat) {
+        return imageFormat == ImageFormat.NV21 || imageFormat == ImageFormat.YV12 || imageFormat == ImageFormat.YUY2;
+    }
+
+    /**
+     * Get the layout for an image format.
+     *
+     * @param imageFormat the ImageFormat
+     * @param width width of the image
+     * @param height height of the image
+     * @return the layout
+     */
+    public static YuvLayout forFormat(int imageFormat, int width, int height) {
+        int lumaSize = width * height;
+        switch (imageFormat) {
+            case ImageFormat.NV21:
+                // Y plane, followed by interleaved V and U.
+                return new YuvLayout(imageFormat, lumaSize + 2 * ((width + 1) / 2) * ((height + 1) / 2), width, 1, true,
+                        lumaSize + 1, lumaSize, width, 2, 1);
+            case ImageFormat.YV12: {
+                // Y plane, followed by V and U planes. Each row is aligned to 16 bytes.
+                // See the documentation of ImageFormat.YV12.
+                int stride = align16(width);
+                int chromaStride = align16(stride / 2);
+                int ySize = stride * height;
+                int chromaSize = chromaStride * height / 2;
+                return new YuvLayout(imageFormat, ySize + 2 * chromaSize, stride, 1, true,
+                        ySize + chromaSize, ySize, chromaStride, 1, 1);
+            }
+            case ImageFormat.YUY2:
+                // Interleaved Y0 U0 Y1 V0 for each pair of pixels.
+                return new YuvLayout(imageFormat, 2 * lumaSize, 2 * width, 2, true,
+                        1, 3, 2 * width, 4, 0);
+            default:
+                return new YuvLayout(imageFormat, lumaSize, width, 1, false, 0, 0, 0, 0, 0);
+        }
+    }
+
+    private static int align16(int value) {
+        return (value + 15) & ~15;
+    }
+
+    public int getImageFormat() {
+        return imageFormat;
+    }
+
+    /**
+     *
+     * @return the minimum size of the image data in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getLumaRowStride() {
+        return lumaRowStride;
+    }
+
+    public int getLumaPixelStride() {
+        return lumaPixelStride;
+    }
+
+    /**
+     *
+     * @return true if the chroma layout is known
+     */
+    public boolean hasChroma() {
+        return hasChroma;
+    }
+
+    public int getUOffset() {
+        return uOffset;
+    }
+
+    public int getVOffset() {
+        return vOffset;
+    }
+
+    public int getChromaRowStride() {
+        return chromaRowStride;
+    }
+
+    public int getChromaPixelStride() {
+        return chromaPixelStride;
+    }
+
+    public int getChromaRowShift() {
+        return chromaRowShift;
+    }
+}
@@ -17,6 +17,7 @@
 package com.journeyapps.barcodescanner.camera;
 
 import android.annotation.TargetApi;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.hardware.Camera;
 import android.os.Build;
@@ -47,6 +48,7 @@ public final class CameraConfigurationUtils {
     private static final int MIN_FPS = 10;
     private static final int MAX_FPS = 20;
     private static final int AREA_PER_1000 = 400;
+    private static final int[] PREFERRED_PREVIEW_FORMATS = {ImageFormat.NV21, ImageFormat.YV12, ImageFormat.YUY2};
 
     private CameraConfigurationUtils() {
     }
@@ -215,6 +217,33 @@ public final class CameraConfigurationUtils {
         }
     }
 
+    /**
+     * Select the cheapest preview format to decode from, out of the formats supported by the
+     * device and by SourceData.
+     *
+     * NV21 is preferred, since its luminance plane can be copied row by row. YV12 is also planar,
+     * but may have padding between rows. YUY2 interleaves luminance and chroma, and is only used if
+     * nothing else is available.
+     *
+     * @param parameters the camera parameters
+     */
+    public static void setBestPreviewFormat(Camera.Parameters parameters) {
+        List<Integer> supportedFormats = parameters.getSupportedPreviewFormats();
+        if (supportedFormats == null) {
+            return;
+        }
+        for (int format : PREFERRED_PREVIEW_FORMATS) {
+            if (supportedFormats.contains(format)) {
+                if (parameters.getPreviewFormat() != format) {
+                    Log.i(TAG, "Setting preview format to " + format);
+                    parameters.setPreviewFormat(format);
+                }
+                return;
+            }
+        }
+        Log.i(TAG, "No supported preview format; keeping " + parameters.getPreviewFormat());
+    }
+
     public static void setBarcodeSceneMode(Camera.Parameters parameters) {
         if (Camera.Parameters.SCENE_MODE_BARCODE.equals(parameters.getSceneMode())) {
             Log.i(TAG, "Barcode scene mode already set");
@@ -16,9 +16,13 @@
 
 package com.journeyapps.barcodescanner.camera;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.ImageFormat;
 import android.hardware.Camera;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Surface;
 import android.view.SurfaceHolder;
@@ -27,6 +31,7 @@ import com.google.zxing.client.android.AmbientLightManager;
 import com.google.zxing.client.android.camera.open.OpenCameraInterface;
 import com.journeyapps.barcodescanner.Size;
 import com.journeyapps.barcodescanner.SourceData;
+import com.journeyapps.barcodescanner.YuvLayout;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -69,10 +74,32 @@ public final class CameraManager {
     private Size requestedPreviewSize;
     private Size previewSize;
 
+    private int previewFormat = ImageFormat.NV21;
+
     private int rotationDegrees = -1;    // camera rotation vs display rotation
 
     private Context context;
 
+    // Only used if CameraSettings.isPreviewBufferPoolEnabled()
+    private final PreviewBufferPool bufferPool = new PreviewBufferPool();
+    private boolean bufferQueued;
+
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            bufferPool.trim(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            bufferPool.trim(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+
 
     private final class CameraPreviewCallback implements Camera.PreviewCallback {
         private PreviewCallback callback;
@@ -92,6 +119,7 @@ public final class CameraManager {
 
         @Override
         public void onPreviewFrame(byte[] data, Camera camera) {
+            bufferQueued = false;
             Size cameraResolution = resolution;
             PreviewCallback callback = this.callback;
             if (cameraResolution != null && callback != null) {
@@ -99,12 +127,15 @@ public final class CameraManager {
                     if (data == null) {
                         throw new NullPointerException("No preview data received");
                     }
-                    int format = camera.getParameters().getPreviewFormat();
-                    SourceData source = new SourceData(data, cameraResolution.width, cameraResolution.height, format, getCameraRotation());
+                    SourceData source = new SourceData(data, cameraResolution.width, cameraResolution.height, previewFormat, getCameraRotation());
+                    source.setTimestamp(SystemClock.elapsedRealtime());
 
                     if (cameraInfo.facing == Camera.CameraInfo.CAMERA_FACING_FRONT) {
                         source.setPreviewMirrored(true);
                     }
+                    if (settings.isPreviewBufferPoolEnabled()) {
+                        source.setBufferPool(bufferPool);
+                    }
                     callback.onPreview(source);
                 } catch (RuntimeException e) {
                     // Could be:
@@ -146,6 +177,8 @@ public final class CameraManager {
         int cameraId = OpenCameraInterface.getCameraId(settings.getRequestedCameraId());
         cameraInfo = new Camera.CameraInfo();
         Camera.getCameraInfo(cameraId, cameraInfo);
+
+        context.registerComponentCallbacks(memoryCallbacks);
     }
 
     /**
@@ -206,6 +239,11 @@ public final class CameraManager {
         if (camera != null && previewing) {
             camera.stopPreview();
             cameraPreviewCallback.setCallback(null);
+            if (settings.isPreviewBufferPoolEnabled()) {
+                // Drops any buffer still queued in the camera.
+                camera.setPreviewCallbackWithBuffer(null);
+                bufferQueued = false;
+            }
             previewing = false;
         }
     }
@@ -219,6 +257,8 @@ public final class CameraManager {
         if (camera != null) {
             camera.release();
             camera = null;
+            context.unregisterComponentCallbacks(memoryCallbacks);
+            bufferPool.trim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
         }
     }
 
@@ -271,6 +311,8 @@ public final class CameraManager {
         if (!safeMode) {
             CameraConfigurationUtils.setTorch(parameters, false);
 
+            CameraConfigurationUtils.setBestPreviewFormat(parameters);
+
             if (settings.isScanInverted()) {
                 CameraConfigurationUtils.setInvertColor(parameters);
             }
@@ -377,7 +419,9 @@ public final class CameraManager {
             }
         }
 
-        Camera.Size realPreviewSize = camera.getParameters().getPreviewSize();
+        Camera.Parameters parameters = camera.getParameters();
+        previewFormat = parameters.getPreviewFormat();
+        Camera.Size realPreviewSize = parameters.getPreviewSize();
         if (realPreviewSize == null) {
             previewSize = requestedPreviewSize;
         } else {
@@ -430,8 +474,25 @@ public final class CameraManager {
         Camera theCamera = camera;
         if (theCamera != null && previewing) {
             cameraPreviewCallback.setCallback(callback);
-            theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            if (settings.isPreviewBufferPoolEnabled() && previewSize != null) {
+                // The camera only delivers a frame when a buffer is queued. We queue one buffer
+                // per request, which gives the same semantics as a one-shot callback.
+                theCamera.setPreviewCallbackWithBuffer(cameraPreviewCallback);
+                if (!bufferQueued) {
+                    theCamera.addCallbackBuffer(bufferPool.acquire(getPreviewBufferSize()));
+                    bufferQueued = true;
+                }
+            } else {
+                theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            }
+        }
+    }
+
+    private int getPreviewBufferSize() {
+        if (YuvLayout.isSupported(previewFormat)) {
+            return YuvLayout.forFormat(previewFormat, previewSize.width, previewSize.height).getSize();
         }
+        return previewSize.width * previewSize.height * ImageFormat.getBitsPerPixel(previewFormat) / 8;
     }
 
     public CameraSettings getCameraSettings() {
@@ -486,6 +547,7 @@ public final class CameraManager {
         if (camera != null) {
             try {
                 camera.setParameters(callback.changeCameraParameters(camera.getParameters()));
+                previewFormat = camera.getParameters().getPreviewFormat();
             } catch(RuntimeException e) {
                 // Camera error. Could happen if the camera is being closed.
                 Log.e(TAG, "Failed to change camera parameters", e);
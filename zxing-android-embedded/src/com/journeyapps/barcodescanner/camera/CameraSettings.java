@@ -14,6 +14,7 @@ public class CameraSettings {
     private boolean continuousFocusEnabled = false;
     private boolean exposureEnabled = false;
     private boolean autoTorchEnabled = false;
+    private boolean previewBufferPoolEnabled = false;
     private FocusMode focusMode = FocusMode.AUTO;
 
     public enum FocusMode {
@@ -160,4 +161,21 @@ public class CameraSettings {
     public void setAutoTorchEnabled(boolean autoTorchEnabled) {
         this.autoTorchEnabled = autoTorchEnabled;
     }
+
+    /**
+     * Default to false.
+     *
+     * If enabled, preview frames are received into a pool of reusable buffers, instead of the
+     * camera allocating a new buffer for every frame. The buffer is returned to the pool once
+     * the frame is released, see {@link com.journeyapps.barcodescanner.SourceData#release()}.
+     *
+     * @return true if preview buffers are pooled
+     */
+    public boolean isPreviewBufferPoolEnabled() {
+        return previewBufferPoolEnabled;
+    }
+
+    public void setPreviewBufferPoolEnabled(boolean previewBufferPoolEnabled) {
+        this.previewBufferPoolEnabled = previewBufferPoolEnabled;
+    }
 }
@@ -0,0 +1,100 @@
+package com.journeyapps.barcodescanner.camera;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayDeque;
+
+/**
+ * A small pool of preview buffers, for use with Camera.setPreviewCallbackWithBuffer().
+ *
+ * Without a pool, the camera allocates a new byte array for every preview frame, which creates a
+ * lot of garbage in continuous scanning mode.
+ *
+ * Buffers are acquired on the camera thread, and may be released from any thread.
+ */
+public class PreviewBufferPool {
+    private static final int DEFAULT_MAX_BUFFERS = 3;
+
+    private final ArrayDeque<byte[]> buffers = new ArrayDeque<>();
+    private final Object LOCK = new Object();
+
+    private int maxBuffers;
+    private int bufferSize;
+
+    public PreviewBufferPool() {
+        this(DEFAULT_MAX_BUFFERS);
+    }
+
+    /**
+     *
+     * @param maxBuffers maximum number of idle buffers to keep
+     */
+    public PreviewBufferPool(int maxBuffers) {
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * Get a buffer of the specified size, allocating a new one if no idle buffer is available.
+     *
+     * If the size differs from the previous call, all idle buffers are discarded.
+     *
+     * @param size the buffer size in bytes
+     * @return a buffer of exactly size bytes
+     */
+    public byte[] acquire(int size) {
+        synchronized (LOCK) {
+            if (size != bufferSize) {
+                buffers.clear();
+                bufferSize = size;
+            }
+            byte[] buffer = buffers.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * Return a buffer to the pool. The buffer must not be used by the caller afterwards.
+     *
+     * Buffers of the wrong size, or in excess of the pool size, are discarded.
+     *
+     * @param buffer the buffer to return
+     */
+    public void release(byte[] buffer) {
+        synchronized (LOCK) {
+            if (buffer.length == bufferSize && buffers.size() < maxBuffers) {
+                buffers.push(buffer);
+            }
+        }
+    }
+
+    /**
+     * Release idle buffers in response to memory pressure.
+     *
+     * @param level the level passed to ComponentCallbacks2.onTrimMemory()
+     */
+    public void trim(int level) {
+        synchronized (LOCK) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                buffers.clear();
+            } else {
+                // Keep a single buffer, which is all we need in the common case.
+                while (buffers.size() > 1) {
+                    buffers.removeLast();
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of idle buffers in the pool
+     */
+    public int getIdleCount() {
+        synchronized (LOCK) {
+            return buffers.size();
+        }
+    }
+}
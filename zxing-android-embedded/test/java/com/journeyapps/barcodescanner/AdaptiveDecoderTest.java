@@ -0,0 +1,65 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.MultiFormatReader;
+
+import org.junit.Test;
+
+import static com.journeyapps.barcodescanner.AdaptiveDecoder.BinarizerType.GLOBAL_HISTOGRAM;
+import static com.journeyapps.barcodescanner.AdaptiveDecoder.BinarizerType.HYBRID;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class AdaptiveDecoderTest {
+
+    @Test
+    public void testExploration() {
+        BinarizerStats stats = new BinarizerStats(10, 4);
+        assertEquals(HYBRID, stats.nextBinarizer());
+        assertEquals(HYBRID, stats.nextBinarizer());
+        assertEquals(HYBRID, stats.nextBinarizer());
+        assertEquals(GLOBAL_HISTOGRAM, stats.nextBinarizer());
+        assertEquals(HYBRID, stats.nextBinarizer());
+    }
+
+    @Test
+    public void testSwitchToBetter() {
+        BinarizerStats stats = new BinarizerStats(4, 4);
+        stats.record(HYBRID, false, 1000);
+        stats.record(HYBRID, true, 1000);
+        assertEquals(HYBRID, stats.getPreferredBinarizer());
+
+        stats.record(GLOBAL_HISTOGRAM, true, 500);
+        assertEquals(GLOBAL_HISTOGRAM, stats.getPreferredBinarizer());
+        assertEquals(1.0f, stats.getSuccessRate(GLOBAL_HISTOGRAM), 0.0f);
+        assertEquals(0.5f, stats.getSuccessRate(HYBRID), 0.0f);
+
+        // Old outcomes drop out of the window.
+        for (int i = 0; i < 4; i++) {
+            stats.record(GLOBAL_HISTOGRAM, false, 500);
+        }
+        assertEquals(0.0f, stats.getSuccessRate(GLOBAL_HISTOGRAM), 0.0f);
+        assertEquals(4, stats.getSampleCount(GLOBAL_HISTOGRAM));
+        assertEquals(HYBRID, stats.getPreferredBinarizer());
+    }
+
+    @Test
+    public void testCheaperOnEqualRate() {
+        BinarizerStats stats = new BinarizerStats(4, 4);
+        stats.record(HYBRID, false, 1000);
+        stats.record(GLOBAL_HISTOGRAM, false, 300);
+        assertEquals(GLOBAL_HISTOGRAM, stats.getPreferredBinarizer());
+        assertEquals(300, stats.getAverageCost(GLOBAL_HISTOGRAM));
+    }
+
+    @Test
+    public void testSharedStats() {
+        BinarizerStats stats = new BinarizerStats(4, 4);
+        AdaptiveDecoder first = new AdaptiveDecoder(new MultiFormatReader(), stats);
+        AdaptiveDecoder second = new AdaptiveDecoder(new MultiFormatReader(), stats);
+        stats.record(GLOBAL_HISTOGRAM, true, 500);
+        assertEquals(GLOBAL_HISTOGRAM, first.getPreferredBinarizer());
+        assertEquals(GLOBAL_HISTOGRAM, second.getPreferredBinarizer());
+    }
+}
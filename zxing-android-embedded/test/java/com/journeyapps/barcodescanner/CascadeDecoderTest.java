@@ -0,0 +1,62 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.DecodeHintType;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class CascadeDecoderTest {
+    private static final Map<DecodeHintType, Object> NO_HINTS = Collections.emptyMap();
+
+    @Test
+    public void testInterval() {
+        TryHarderSchedule schedule = new TryHarderSchedule(3, 0);
+        boolean[] expected = {false, false, true, false, false, true};
+        for (boolean thorough : expected) {
+            assertEquals(thorough, schedule.nextFrameThorough());
+            schedule.recordResult(false);
+        }
+    }
+
+    @Test
+    public void testAfterMisses() {
+        TryHarderSchedule schedule = new TryHarderSchedule(0, 2);
+        assertFalse(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertFalse(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        // One thorough frame per 2 misses
+        assertTrue(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertFalse(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertTrue(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertFalse(schedule.nextFrameThorough());
+        // A result resets the count
+        schedule.recordResult(true);
+        assertFalse(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertFalse(schedule.nextFrameThorough());
+        schedule.recordResult(false);
+        assertTrue(schedule.nextFrameThorough());
+    }
+
+    @Test
+    public void testSharedSchedule() {
+        TryHarderSchedule schedule = new TryHarderSchedule(0, 2);
+        CascadeDecoder first = new CascadeDecoder(NO_HINTS, schedule);
+        CascadeDecoder second = new CascadeDecoder(NO_HINTS, schedule);
+        assertNull(first.decode(TestImages.source(new byte[100], 10, 10)));
+        assertNull(second.decode(TestImages.source(new byte[100], 10, 10)));
+        // The misses of both decoders are counted together.
+        assertTrue(schedule.nextFrameThorough());
+    }
+}
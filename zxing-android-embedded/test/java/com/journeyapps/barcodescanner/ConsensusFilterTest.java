@@ -0,0 +1,55 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ConsensusFilterTest {
+    private static boolean passes(ResultFilter filter, String text, BarcodeFormat format, long timestamp) {
+        Result result = new Result(text, null, null, format, timestamp);
+        return !filter.filter(Collections.singletonList(result)).isEmpty();
+    }
+
+    @Test
+    public void testVotes() {
+        ConsensusFilter filter = new ConsensusFilter(3, 1000);
+        assertFalse(passes(filter, "123", BarcodeFormat.EAN_13, 0));
+        // A misread doesn't count towards the other value.
+        assertFalse(passes(filter, "124", BarcodeFormat.EAN_13, 100));
+        assertFalse(passes(filter, "123", BarcodeFormat.EAN_13, 200));
+        assertTrue(passes(filter, "123", BarcodeFormat.EAN_13, 300));
+        // Still confirmed by the last three votes
+        assertTrue(passes(filter, "123", BarcodeFormat.EAN_13, 400));
+        assertFalse(passes(filter, "124", BarcodeFormat.EAN_13, 500));
+    }
+
+    @Test
+    public void testWindow() {
+        ConsensusFilter filter = new ConsensusFilter(2, 1000);
+        assertFalse(passes(filter, "123", BarcodeFormat.CODE_128, 0));
+        assertFalse(passes(filter, "123", BarcodeFormat.CODE_128, 1500));
+        assertTrue(passes(filter, "123", BarcodeFormat.CODE_128, 2000));
+    }
+
+    @Test
+    public void testBypass() {
+        ConsensusFilter filter = new ConsensusFilter(3, 1000);
+        assertTrue(passes(filter, "qr", BarcodeFormat.QR_CODE, 0));
+    }
+
+    @Test
+    public void testComposite() {
+        ResultFilter filter = new CompositeResultFilter(new ConsensusFilter(2, 1000), new DuplicateFilter(5000, 10));
+        assertFalse(passes(filter, "123", BarcodeFormat.CODE_128, 0));
+        assertTrue(passes(filter, "123", BarcodeFormat.CODE_128, 100));
+        assertFalse(passes(filter, "123", BarcodeFormat.CODE_128, 200));
+    }
+}
@@ -0,0 +1,122 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DefaultDecoderFactoryTest {
+    private static final Map<DecodeHintType, Object> NO_HINTS = Collections.emptyMap();
+
+    @Test
+    public void testSingleStrategy() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        assertEquals(Decoder.class, factory.createDecoder(NO_HINTS).getClass());
+
+        factory.setTryHarderSchedule(5, 0);
+        assertTrue(factory.createDecoder(NO_HINTS) instanceof CascadeDecoder);
+
+        factory = new DefaultDecoderFactory(null, null, null, 1);
+        assertTrue(factory.createDecoder(NO_HINTS) instanceof InvertedDecoder);
+    }
+
+    @Test
+    public void testScanlineNotApplicable() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory(Collections.singletonList(BarcodeFormat.QR_CODE));
+        factory.setScanlineDecoding(3, false);
+        assertEquals(Decoder.class, factory.createDecoder(NO_HINTS).getClass());
+    }
+
+    @Test
+    public void testScanlineFormatsFromHints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.EAN_13));
+        DefaultDecoderFactory factory = new DefaultDecoderFactory(null, hints, null, 0);
+        factory.setScanlineDecoding(3, false);
+        assertTrue(factory.createDecoder(NO_HINTS) instanceof ScanlineDecoder);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testConflictingStrategies() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        factory.setMultiple(true);
+        factory.setMinTiledBarcodeSize(100);
+    }
+
+    @Test
+    public void testReplaceStrategy() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        factory.setMultiple(true);
+        factory.setMultiple(false);
+        factory.setMinTiledBarcodeSize(100);
+        factory.setMinTiledBarcodeSize(50);
+        assertTrue(factory.createDecoder(NO_HINTS) instanceof TiledDecoder);
+    }
+
+    @Test
+    public void testScanTypeWithStrategy() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory(null, null, null, 2);
+        factory.setTryHarderSchedule(5, 10);
+        Decoder decoder = factory.createDecoder(NO_HINTS);
+        assertTrue(decoder instanceof PolarityDecoder);
+        assertTrue(((PolarityDecoder) decoder).getDecoder() instanceof CascadeDecoder);
+
+        // Scanline decoding doesn't apply, so the polarity is handled by the binarizer.
+        factory = new DefaultDecoderFactory(Collections.singletonList(BarcodeFormat.QR_CODE), null, null, 2);
+        factory.setScanlineDecoding(3, false);
+        assertTrue(factory.createDecoder(NO_HINTS) instanceof MixedDecoder);
+    }
+
+    @Test
+    public void testSharedTryHarderSchedule() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        factory.setTryHarderSchedule(5, 10);
+        CascadeDecoder first = (CascadeDecoder) factory.createDecoder(NO_HINTS);
+        CascadeDecoder second = (CascadeDecoder) factory.createDecoder(NO_HINTS);
+        assertSame(factory.getTryHarderSchedule(), first.getSchedule());
+        assertSame(first.getSchedule(), second.getSchedule());
+        assertEquals(5, factory.getTryHarderInterval());
+
+        factory.setTryHarderSchedule(0, 0);
+        assertNull(factory.getTryHarderSchedule());
+    }
+
+    @Test
+    public void testHitRatesWithStrategy() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory(null, null, null, 1);
+        factory.setTryHarderSchedule(5, 10);
+        factory.setFormatHitRates(new FormatHitRates());
+        HitRateDecoder decoder = (HitRateDecoder) factory.createDecoder(NO_HINTS);
+        PolarityDecoder all = (PolarityDecoder) decoder.nextDecoder();
+        assertTrue(all.getDecoder() instanceof CascadeDecoder);
+    }
+
+    @Test
+    public void testSharedFrameBudgetStats() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        factory.setFrameBudget(50);
+        TimeBudgetDecoder first = (TimeBudgetDecoder) factory.createDecoder(NO_HINTS);
+        TimeBudgetDecoder second = (TimeBudgetDecoder) factory.createDecoder(NO_HINTS);
+        assertSame(factory.getFrameBudgetStats(), first.getStats());
+        assertSame(first.getStats(), second.getStats());
+    }
+
+    @Test
+    public void testSharedBinarizerStats() {
+        DefaultDecoderFactory factory = new DefaultDecoderFactory();
+        factory.setAdaptiveBinarizer(true);
+        AdaptiveDecoder first = (AdaptiveDecoder) factory.createDecoder(NO_HINTS);
+        AdaptiveDecoder second = (AdaptiveDecoder) factory.createDecoder(NO_HINTS);
+        assertSame(factory.getBinarizerStats(), first.getStats());
+        assertSame(first.getStats(), second.getStats());
+    }
+}
@@ -0,0 +1,57 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DualPolarityDecoderTest {
+
+    private static LuminanceSource image(boolean inverted) throws Exception {
+        // 83 pixels wide, not a multiple of 32, to test the padding bits.
+        return TestImages.qrCode("dual", inverted);
+    }
+
+    @Test
+    public void testInvertedMatrix() throws Exception {
+        CachingBinarizer binarizer = new CachingBinarizer(new HybridBinarizer(image(false)));
+        BitMatrix matrix = binarizer.getBlackMatrix();
+        BitMatrix inverted = new InvertedBinarizer(binarizer).getBlackMatrix();
+
+        assertSame(matrix, binarizer.getBlackMatrix());
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                assertNotEquals(matrix.get(x, y), inverted.get(x, y));
+            }
+        }
+        // No bits are set past the width.
+        int[] bottomRight = inverted.getBottomRightOnBit();
+        assertTrue(bottomRight[0] < matrix.getWidth());
+    }
+
+    @Test
+    public void testInvertRow() {
+        BitArray row = new BitArray(40);
+        row.set(3);
+        InvertedBinarizer.invert(row, 40);
+        assertFalse(row.get(3));
+        assertTrue(row.get(39));
+        assertEquals(~(1 << 3), row.getBitArray()[0]);
+        assertEquals(0xff, row.getBitArray()[1]);
+    }
+
+    @Test
+    public void testDecodeBothPolarities() throws Exception {
+        DualPolarityDecoder decoder = new DualPolarityDecoder(new MultiFormatReader());
+        assertEquals("dual", decoder.decode(image(false)).getText());
+        assertEquals("dual", decoder.decode(image(true)).getText());
+    }
+}
@@ -0,0 +1,63 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DuplicateFilterTest {
+    private static Result result(String text, BarcodeFormat format, long timestamp) {
+        return new Result(text, null, null, format, timestamp);
+    }
+
+    private static int count(DuplicateFilter filter, Result... results) {
+        List<Result> filtered = filter.filter(Arrays.asList(results));
+        return filtered.size();
+    }
+
+    @Test
+    public void testTtl() {
+        DuplicateFilter filter = new DuplicateFilter(1000, 10);
+        assertEquals(1, count(filter, result("a", BarcodeFormat.QR_CODE, 0)));
+        assertEquals(0, count(filter, result("a", BarcodeFormat.QR_CODE, 500)));
+        assertEquals(0, count(filter, result("a", BarcodeFormat.QR_CODE, 999)));
+        // Same text, different format
+        assertEquals(1, count(filter, result("a", BarcodeFormat.CODE_128, 999)));
+        // Reported again after the ttl
+        assertEquals(1, count(filter, result("a", BarcodeFormat.QR_CODE, 1000)));
+
+        assertEquals(2, filter.getSuppressedCount(result("a", BarcodeFormat.QR_CODE, 0)));
+        assertEquals(0, filter.getSuppressedCount(result("a", BarcodeFormat.CODE_128, 0)));
+        assertEquals(2, filter.getSuppressedCount());
+    }
+
+    @Test
+    public void testEviction() {
+        DuplicateFilter filter = new DuplicateFilter(1000, 2);
+        assertEquals(2, count(filter, result("a", BarcodeFormat.QR_CODE, 0), result("b", BarcodeFormat.QR_CODE, 0)));
+        // Seeing "a" again makes "b" the least recently seen.
+        assertEquals(0, count(filter, result("a", BarcodeFormat.QR_CODE, 10)));
+        assertEquals(1, count(filter, result("c", BarcodeFormat.QR_CODE, 20)));
+
+        assertEquals(0, count(filter, result("a", BarcodeFormat.QR_CODE, 30)));
+        assertEquals(1, count(filter, result("b", BarcodeFormat.QR_CODE, 40)));
+    }
+
+    @Test
+    public void testRawBytesKey() {
+        Result first = new Result(null, new byte[]{1, 2}, null, BarcodeFormat.QR_CODE, 0);
+        Result second = new Result(null, new byte[]{1, 3}, null, BarcodeFormat.QR_CODE, 0);
+        assertNotEquals(DuplicateFilter.key(first), DuplicateFilter.key(second));
+        assertEquals(DuplicateFilter.key(first), DuplicateFilter.key(new Result(null, new byte[]{1, 2}, null, BarcodeFormat.QR_CODE, 5)));
+        assertEquals(Collections.singletonList(first), new DuplicateFilter().filter(Arrays.asList(first, first)));
+    }
+}
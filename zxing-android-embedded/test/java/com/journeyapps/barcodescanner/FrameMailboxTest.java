@@ -0,0 +1,59 @@
+package com.journeyapps.barcodescanner;
+
+import android.graphics.ImageFormat;
+
+import com.journeyapps.barcodescanner.camera.PreviewBufferPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class FrameMailboxTest {
+
+    private static SourceData frame(PreviewBufferPool pool, long timestamp) {
+        SourceData frame = new SourceData(pool.acquire(4 * 4 * 3 / 2), 4, 4, ImageFormat.NV21, 0);
+        frame.setBufferPool(pool);
+        frame.setTimestamp(timestamp);
+        return frame;
+    }
+
+    @Test
+    public void testLatestWins() {
+        PreviewBufferPool pool = new PreviewBufferPool(3);
+        FrameMailbox mailbox = new FrameMailbox();
+        assertTrue(mailbox.isEmpty());
+
+        SourceData a = frame(pool, 0);
+        SourceData b = frame(pool, 1);
+        assertFalse(mailbox.put(a));
+        assertTrue(mailbox.put(b));
+        // The replaced frame is released to the pool.
+        assertEquals(1, pool.getIdleCount());
+
+        assertSame(b, mailbox.take());
+        assertNull(mailbox.take());
+        assertTrue(mailbox.isEmpty());
+    }
+
+    @Test
+    public void testExpired() {
+        PreviewBufferPool pool = new PreviewBufferPool(3);
+        FrameMailbox mailbox = new FrameMailbox();
+
+        SourceData frame = frame(pool, 1000);
+        mailbox.put(frame);
+        assertSame(frame, mailbox.take(1100, 100));
+
+        mailbox.put(frame(pool, 1000));
+        assertNull(mailbox.take(1101, 100));
+        assertTrue(mailbox.isEmpty());
+        assertEquals(1, pool.getIdleCount());
+
+        // No limit
+        mailbox.put(frame);
+        assertSame(frame, mailbox.take(100000, 0));
+    }
+}
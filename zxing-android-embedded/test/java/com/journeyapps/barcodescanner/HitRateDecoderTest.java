@@ -0,0 +1,90 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class HitRateDecoderTest {
+    private static FormatHitRates hitRates(int code128, int qr) {
+        FormatHitRates hitRates = new FormatHitRates(0.9f, 20);
+        for (int i = 0; i < code128; i++) {
+            hitRates.record(BarcodeFormat.CODE_128);
+        }
+        for (int i = 0; i < qr; i++) {
+            hitRates.record(BarcodeFormat.QR_CODE);
+        }
+        return hitRates;
+    }
+
+    @Test
+    public void testLikelyFormats() {
+        assertNull(hitRates(10, 0).getLikelyFormats(null));
+        assertEquals(Collections.singleton(BarcodeFormat.CODE_128), hitRates(95, 5).getLikelyFormats(null));
+        assertEquals(EnumSet.of(BarcodeFormat.CODE_128, BarcodeFormat.QR_CODE), hitRates(80, 20).getLikelyFormats(null));
+        // Only formats that are allowed
+        assertEquals(Collections.singleton(BarcodeFormat.QR_CODE),
+                hitRates(80, 20).getLikelyFormats(Collections.singletonList(BarcodeFormat.QR_CODE)));
+    }
+
+    @Test
+    public void testRecordOncePerScan() {
+        FormatHitRates hitRates = new FormatHitRates();
+        Result first = new Result("1", null, null, BarcodeFormat.QR_CODE);
+        hitRates.record(first);
+        hitRates.record(new Result("1", null, null, BarcodeFormat.QR_CODE));
+        assertEquals(1, hitRates.getCount(BarcodeFormat.QR_CODE));
+        hitRates.record(new Result("2", null, null, BarcodeFormat.QR_CODE));
+        hitRates.record(first);
+        assertEquals(3, hitRates.getCount(BarcodeFormat.QR_CODE));
+    }
+
+    @Test
+    public void testSweeps() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Arrays.asList(BarcodeFormat.CODE_128, BarcodeFormat.QR_CODE));
+        HitRateDecoder decoder = new HitRateDecoder(hints, hitRates(95, 5), 3);
+
+        Decoder likely = decoder.nextDecoder();
+        assertSame(likely, decoder.nextDecoder());
+        // Every third frame tries all formats.
+        assertNotSame(likely, decoder.nextDecoder());
+        assertSame(likely, decoder.nextDecoder());
+    }
+
+    @Test
+    public void testNarrowedDecoders() {
+        final List<Object> formats = new ArrayList<>();
+        DecoderFactory factory = new DecoderFactory() {
+            @Override
+            public Decoder createDecoder(Map<DecodeHintType, ?> hints) {
+                formats.add(hints.get(DecodeHintType.POSSIBLE_FORMATS));
+                return new Decoder(null);
+            }
+        };
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Arrays.asList(BarcodeFormat.CODE_128, BarcodeFormat.QR_CODE));
+        HitRateDecoder decoder = new HitRateDecoder(hints, hitRates(95, 5), 3, factory);
+
+        decoder.nextDecoder();
+        decoder.nextDecoder();
+        decoder.nextDecoder();
+        // One decoder for all formats, and one for the likely formats.
+        assertEquals(Arrays.<Object>asList(hints.get(DecodeHintType.POSSIBLE_FORMATS),
+                Collections.singleton(BarcodeFormat.CODE_128)), formats);
+    }
+}
@@ -0,0 +1,41 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MixedDecoderTest {
+
+    private static LuminanceSource image(boolean inverted) throws Exception {
+        return TestImages.qrCode("polarity", inverted);
+    }
+
+    @Test
+    public void testEstimateInverted() throws Exception {
+        assertFalse(PolaritySchedule.estimateInverted(image(false)));
+        assertTrue(PolaritySchedule.estimateInverted(image(true)));
+    }
+
+    @Test
+    public void testPreferPolarity() throws Exception {
+        for (boolean inverted : new boolean[]{false, true}) {
+            MixedDecoder decoder = new MixedDecoder(new MultiFormatReader());
+            LuminanceSource source = image(inverted);
+            int found = 0;
+            for (int i = 0; i < 16; i++) {
+                if (decoder.decode(source) != null) {
+                    found++;
+                }
+            }
+            // Only one frame out of 8 is spent on the other polarity.
+            assertEquals(14, found);
+            assertEquals(inverted, decoder.getInvertedPreferred());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class MultiDecoderTest {
+
+    @Test
+    public void testDecodeMultiple() throws Exception {
+        PlanarYUVLuminanceSource source = TestImages.qrCodes(320, 240, 3, new int[][]{{20, 20}, {220, 140}}, new String[]{"first", "second"});
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        MultiDecoder decoder = new MultiDecoder(hints);
+
+        List<Result> results = decoder.decodeMultiple(source);
+        Set<String> texts = new HashSet<>();
+        for (Result result : results) {
+            texts.add(result.getText());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), texts);
+        assertEquals(2, results.size());
+
+        // decode() returns one of them
+        assertTrue(texts.contains(decoder.decode(source).getText()));
+    }
+
+    @Test
+    public void testDecodeMultipleNone() throws Exception {
+        PlanarYUVLuminanceSource source = TestImages.qrCodes(100, 100, 3, new int[0][], new String[0]);
+        MultiDecoder decoder = new MultiDecoder(new EnumMap<DecodeHintType, Object>(DecodeHintType.class));
+        assertTrue(decoder.decodeMultiple(source).isEmpty());
+        assertNull(decoder.decode(source));
+    }
+}
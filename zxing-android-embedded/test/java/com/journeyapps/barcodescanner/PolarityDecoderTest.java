@@ -0,0 +1,57 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.client.android.Intents;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PolarityDecoderTest {
+
+    private static Map<DecodeHintType, Object> hints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        return hints;
+    }
+
+    @Test
+    public void testInverted() throws Exception {
+        PolarityDecoder decoder = new PolarityDecoder(new TiledDecoder(hints(), 60), Intents.Scan.INVERTED_SCAN);
+        assertEquals("tiled", decoder.decode(TestImages.qrCode("tiled", true)).getText());
+        assertNull(decoder.decode(TestImages.qrCode("tiled", false)));
+    }
+
+    @Test
+    public void testDual() throws Exception {
+        PolarityDecoder decoder = new PolarityDecoder(new MultiDecoder(hints()), Intents.Scan.DUAL_SCAN);
+        assertEquals(1, decoder.decodeMultiple(TestImages.qrCode("dual", false)).size());
+        assertEquals(1, decoder.decodeMultiple(TestImages.qrCode("dual", true)).size());
+    }
+
+    @Test
+    public void testMixed() throws Exception {
+        PolarityDecoder decoder = new PolarityDecoder(new CascadeDecoder(hints(), 4, 0), Intents.Scan.MIXED_SCAN);
+        LuminanceSource source = TestImages.qrCode("mixed", true);
+        int found = 0;
+        for (int i = 0; i < 16; i++) {
+            Result result = decoder.decode(source);
+            if (result != null) {
+                found++;
+            }
+        }
+        // Only one frame out of 8 is spent on the other polarity.
+        assertEquals(14, found);
+        assertEquals(Boolean.TRUE, decoder.getInvertedPreferred());
+    }
+}
@@ -0,0 +1,65 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PyramidDecoderTest {
+    // A white image with a QR code drawn at (left, top), with modules of scale pixels.
+    private static PlanarYUVLuminanceSource image(int width, int height, int scale, int left, int top) throws Exception {
+        return TestImages.qrCodes(width, height, scale, new int[][]{{left, top}}, new String[]{"pyramid"});
+    }
+
+    private static MultiFormatReader reader() {
+        MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(Collections.singletonMap(DecodeHintType.POSSIBLE_FORMATS,
+                Collections.singletonList(BarcodeFormat.QR_CODE)));
+        return reader;
+    }
+
+    @Test
+    public void testDownscale() {
+        byte[] matrix = {
+                0, 4, 8, 8, 1,
+                4, 8, 8, (byte) 255, 1,
+                9, 9, 9, 9, 9
+        };
+        byte[] out = new byte[2];
+        PyramidDecoder.downscale(matrix, 5, 3, out);
+        assertEquals(4, out[0]);
+        assertEquals(70, out[1]);
+    }
+
+    @Test
+    public void testLargeBarcode() throws Exception {
+        PyramidDecoder decoder = new PyramidDecoder(reader());
+        Result result = decoder.decode(image(400, 400, 12, 40, 60));
+
+        assertEquals("pyramid", result.getText());
+        // Found at the quarter resolution
+        assertEquals(2, decoder.getPreferredLevel());
+        // Result points are in full resolution coordinates, near the finder pattern centers.
+        ResultPoint topLeft = result.getResultPoints()[1];
+        assertEquals(40 + 3.5 * 12, topLeft.getX(), 4);
+        assertEquals(60 + 3.5 * 12, topLeft.getY(), 4);
+    }
+
+    @Test
+    public void testSmallBarcode() throws Exception {
+        PyramidDecoder decoder = new PyramidDecoder(reader());
+        assertEquals("pyramid", decoder.decode(image(400, 400, 1, 100, 100)).getText());
+        assertEquals(0, decoder.getPreferredLevel());
+    }
+}
@@ -0,0 +1,148 @@
+package com.journeyapps.barcodescanner;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RawImageDataTest {
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+
+    // Sizes around the tile size used for blocked rotation
+    private static final int[][] SIZES = {{1, 1}, {1, 9}, {9, 1}, {31, 33}, {33, 31}, {65, 97}, {100, 3}, {3, 100}};
+
+    private static RawImageData image(int width, int height) {
+        byte[] data = new byte[width * height];
+        new Random(width * 31 + height).nextBytes(data);
+        return new RawImageData(data, width, height);
+    }
+
+    private static void assertSameImage(RawImageData expected, RawImageData actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(expected.getData(), actual.getData());
+    }
+
+    @Test
+    public void testRotateCropAndScale() {
+        RawImageData image = image(13, 7);
+        for (int rotation : ROTATIONS) {
+            boolean rotated = rotation % 180 != 0;
+            int width = rotated ? 7 : 13;
+            int height = rotated ? 13 : 7;
+            for (int scale = 1; scale <= 3; scale++) {
+                // Full image, and an off-center crop
+                RawImageData expected = image.rotateCameraPreview(rotation).cropAndScale(0, 0, width, height, scale);
+                assertSameImage(expected, image.rotateCropAndScale(rotation, 0, 0, width, height, scale));
+
+                expected = image.rotateCameraPreview(rotation).cropAndScale(1, 2, width - 3, height - 2, scale);
+                assertSameImage(expected, image.rotateCropAndScale(rotation, 1, 2, width - 3, height - 2, scale));
+            }
+        }
+    }
+
+    @Test
+    public void testRotateCropAndScaleSinglePixel() {
+        RawImageData image = image(5, 3);
+        for (int rotation : ROTATIONS) {
+            RawImageData expected = image.rotateCameraPreview(rotation).cropAndScale(2, 1, 1, 1, 1);
+            assertSameImage(expected, image.rotateCropAndScale(rotation, 2, 1, 1, 1, 1));
+        }
+    }
+
+    // The original, unblocked implementation of rotateCW.
+    private static byte[] referenceRotateCW(byte[] data, int imageWidth, int imageHeight) {
+        byte[] yuv = new byte[imageWidth * imageHeight];
+        int i = 0;
+        for (int x = 0; x < imageWidth; x++) {
+            for (int y = imageHeight - 1; y >= 0; y--) {
+                yuv[i] = data[y * imageWidth + x];
+                i++;
+            }
+        }
+        return yuv;
+    }
+
+    // The original, unblocked implementation of rotateCCW.
+    private static byte[] referenceRotateCCW(byte[] data, int imageWidth, int imageHeight) {
+        int n = imageWidth * imageHeight;
+        byte[] yuv = new byte[n];
+        int i = n - 1;
+        for (int x = 0; x < imageWidth; x++) {
+            for (int y = imageHeight - 1; y >= 0; y--) {
+                yuv[i] = data[y * imageWidth + x];
+                i--;
+            }
+        }
+        return yuv;
+    }
+
+    @Test
+    public void testRotateCW() {
+        for (int[] size : SIZES) {
+            byte[] data = image(size[0], size[1]).getData();
+            assertArrayEquals(referenceRotateCW(data, size[0], size[1]), RawImageData.rotateCW(data, size[0], size[1]));
+        }
+    }
+
+    @Test
+    public void testRotateCCW() {
+        for (int[] size : SIZES) {
+            byte[] data = image(size[0], size[1]).getData();
+            assertArrayEquals(referenceRotateCCW(data, size[0], size[1]), RawImageData.rotateCCW(data, size[0], size[1]));
+        }
+    }
+
+    @Test
+    public void testRotateCroppedBlocked() {
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            byte[] data = image(width, height).getData();
+            RawImageData image = new RawImageData(data, width, height);
+
+            // Rotated dimensions are (height, width). Crop a border of 1 pixel where possible.
+            int left = height > 2 ? 1 : 0;
+            int top = width > 2 ? 1 : 0;
+            int cropWidth = height - 2 * left;
+            int cropHeight = width - 2 * top;
+
+            RawImageData cw = new RawImageData(referenceRotateCW(data, width, height), height, width);
+            assertSameImage(cw.cropAndScale(left, top, cropWidth, cropHeight, 1), image.rotateCropAndScale(90, left, top, cropWidth, cropHeight, 1));
+
+            RawImageData ccw = new RawImageData(referenceRotateCCW(data, width, height), height, width);
+            assertSameImage(ccw.cropAndScale(left, top, cropWidth, cropHeight, 1), image.rotateCropAndScale(270, left, top, cropWidth, cropHeight, 1));
+        }
+    }
+
+    // Spread compact luminance data out with the given strides, filling the gaps with noise.
+    private static RawImageData strided(RawImageData compact, int rowStride, int pixelStride) {
+        byte[] data = new byte[rowStride * compact.getHeight()];
+        new Random(rowStride).nextBytes(data);
+        for (int y = 0; y < compact.getHeight(); y++) {
+            for (int x = 0; x < compact.getWidth(); x++) {
+                data[y * rowStride + x * pixelStride] = compact.getData()[y * compact.getWidth() + x];
+            }
+        }
+        return new RawImageData(data, compact.getWidth(), compact.getHeight(), rowStride, pixelStride);
+    }
+
+    @Test
+    public void testStrided() {
+        RawImageData compact = image(13, 7);
+        // Padded rows (YV12), and interleaved luminance (YUY2)
+        RawImageData[] images = {strided(compact, 16, 1), strided(compact, 26, 2)};
+        for (RawImageData image : images) {
+            assertFalse(image.isCompact());
+            for (int rotation : ROTATIONS) {
+                assertSameImage(compact.rotateCameraPreview(rotation), image.rotateCameraPreview(rotation));
+                assertSameImage(compact.rotateCropAndScale(rotation, 1, 2, 5, 4, 2), image.rotateCropAndScale(rotation, 1, 2, 5, 4, 2));
+            }
+            assertSameImage(compact.cropAndScale(1, 2, 5, 4, 1), image.cropAndScale(1, 2, 5, 4, 1));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RoiTrackerTest {
+    private static List<Result> result(ResultPoint... points) {
+        return Collections.singletonList(new Result("text", null, points, BarcodeFormat.QR_CODE));
+    }
+
+    @Test
+    public void testTrackResult() {
+        RoiTracker tracker = new RoiTracker(2);
+        assertNull(tracker.getRegion(0, 0, 640, 480));
+
+        // Points relative to a region at (100, 50), with a scaling factor of 2.
+        tracker.update(100, 50, 2, result(new ResultPoint(10, 10), new ResultPoint(60, 10), new ResultPoint(10, 60)), null);
+        assertTrue(tracker.isTracking());
+        // Bounding box (120, 70) - (220, 170), expanded by 50 + 16 on each side.
+        assertArrayEquals(new int[]{54, 4, 286, 236}, tracker.getRegion(0, 0, 640, 480));
+        // Clipped to the full rectangle
+        assertArrayEquals(new int[]{100, 50, 286, 236}, tracker.getRegion(100, 50, 540, 430));
+    }
+
+    @Test
+    public void testFallBackAfterMisses() {
+        RoiTracker tracker = new RoiTracker(2);
+        tracker.update(0, 0, 1, result(new ResultPoint(100, 100), new ResultPoint(200, 100)), null);
+        List<Result> none = Collections.emptyList();
+
+        tracker.update(0, 0, 1, none, null);
+        tracker.update(0, 0, 1, none, null);
+        assertNotNull(tracker.getRegion(0, 0, 640, 480));
+        tracker.update(0, 0, 1, none, null);
+        assertNull(tracker.getRegion(0, 0, 640, 480));
+    }
+
+    @Test
+    public void testCandidatesAfterFallBack() {
+        RoiTracker tracker = new RoiTracker(2);
+        tracker.update(0, 0, 1, result(new ResultPoint(100, 100), new ResultPoint(200, 100)), null);
+        List<Result> none = Collections.emptyList();
+        for (int i = 0; i < 3; i++) {
+            tracker.update(0, 0, 1, none, null);
+        }
+        assertFalse(tracker.isTracking());
+
+        // The full rectangle has candidates again.
+        tracker.update(0, 0, 1, none, Arrays.asList(new ResultPoint(100, 100), new ResultPoint(200, 100),
+                new ResultPoint(100, 200)));
+        assertArrayEquals(new int[]{34, 34, 266, 266}, tracker.getRegion(0, 0, 640, 480));
+    }
+
+    @Test
+    public void testPossibleResultPoints() {
+        RoiTracker tracker = new RoiTracker(2);
+        List<Result> none = Collections.emptyList();
+
+        // Too few candidates
+        tracker.update(0, 0, 1, none, Arrays.asList(new ResultPoint(100, 100), new ResultPoint(200, 100)));
+        assertFalse(tracker.isTracking());
+
+        tracker.update(0, 0, 1, none, Arrays.asList(new ResultPoint(100, 100), new ResultPoint(200, 100),
+                new ResultPoint(100, 200)));
+        assertArrayEquals(new int[]{34, 34, 266, 266}, tracker.getRegion(0, 0, 640, 480));
+    }
+}
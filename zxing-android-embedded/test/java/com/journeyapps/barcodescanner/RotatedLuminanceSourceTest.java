@@ -0,0 +1,106 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RotatedLuminanceSourceTest {
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+
+    private final byte[] data = data(11 * 7);
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static void assertMatrix(byte[] expected, LuminanceSource source) {
+        assertArrayEquals(expected, source.getMatrix());
+
+        int width = source.getWidth();
+        for (int y = 0; y < source.getHeight(); y++) {
+            byte[] expectedRow = new byte[width];
+            System.arraycopy(expected, y * width, expectedRow, 0, width);
+            assertArrayEquals(expectedRow, source.getRow(y, null));
+        }
+    }
+
+    private static byte[] inverted(byte[] values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) (255 - (values[i] & 0xff));
+        }
+        return result;
+    }
+
+    @Test
+    public void testRotateCropAndScale() {
+        RawImageData image = new RawImageData(data, 11, 7);
+        for (int rotation : ROTATIONS) {
+            for (int scale = 1; scale <= 2; scale++) {
+                RotatedLuminanceSource source = new RotatedLuminanceSource(data, 11, 7, rotation, false, 1, 2, 5, 4, scale);
+                RawImageData expected = image.rotateCropAndScale(rotation, 1, 2, 5, 4, scale);
+
+                assertEquals(expected.getWidth(), source.getWidth());
+                assertEquals(expected.getHeight(), source.getHeight());
+                assertMatrix(expected.getData(), source);
+            }
+        }
+    }
+
+    @Test
+    public void testMirrored() {
+        for (int rotation : ROTATIONS) {
+            int displayWidth = rotation % 180 == 0 ? 11 : 7;
+            LuminanceSource full = new RotatedLuminanceSource(data, 11, 7, rotation, false, 0, 0, displayWidth, 77 / displayWidth, 1);
+            LuminanceSource mirrored = new RotatedLuminanceSource(data, 11, 7, rotation, true, 1, 2, 3, 4, 1);
+
+            byte[] row = full.getRow(3, null);
+            // Pixel 0 of the mirrored crop is pixel (displayWidth - 2) of the unmirrored row.
+            assertEquals(row[displayWidth - 2], mirrored.getRow(1, null)[0]);
+            assertEquals(row[displayWidth - 4], mirrored.getRow(1, null)[2]);
+        }
+    }
+
+    @Test
+    public void testCrop() {
+        for (int rotation : ROTATIONS) {
+            LuminanceSource source = new RotatedLuminanceSource(data, 11, 7, rotation, false, 0, 0, 5, 5, 1);
+            LuminanceSource expected = new RotatedLuminanceSource(data, 11, 7, rotation, false, 1, 2, 3, 2, 1);
+            assertMatrix(expected.getMatrix(), source.crop(1, 2, 3, 2));
+        }
+    }
+
+    @Test
+    public void testRotateCounterClockwise() {
+        for (int rotation : ROTATIONS) {
+            LuminanceSource source = new RotatedLuminanceSource(data, 11, 7, rotation, false, 1, 1, 5, 4, 1);
+            byte[] expected = RawImageData.rotateCCW(source.getMatrix(), 5, 4);
+
+            LuminanceSource rotated = source.rotateCounterClockwise();
+            assertEquals(4, rotated.getWidth());
+            assertEquals(5, rotated.getHeight());
+            assertMatrix(expected, rotated);
+
+            // Four rotations give the original image
+            LuminanceSource full = rotated.rotateCounterClockwise().rotateCounterClockwise().rotateCounterClockwise();
+            assertMatrix(source.getMatrix(), full);
+        }
+    }
+
+    @Test
+    public void testInvert() {
+        LuminanceSource source = new RotatedLuminanceSource(data, 11, 7, 90, false, 0, 0, 7, 11, 1);
+        assertMatrix(inverted(source.getMatrix()), source.invert());
+        assertMatrix(source.getMatrix(), source.invert().invert());
+        assertMatrix(inverted(source.crop(1, 1, 2, 2).getMatrix()), source.invert().crop(1, 1, 2, 2));
+    }
+}
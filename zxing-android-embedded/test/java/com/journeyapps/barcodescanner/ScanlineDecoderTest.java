@@ -0,0 +1,89 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.EAN13Writer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ScanlineDecoderTest {
+    private static final String EAN = "5901234123457";
+
+    // A white image with an EAN-13 barcode of the given height, rotated by the given slope.
+    private static PlanarYUVLuminanceSource image(int width, int height, int top, int barHeight, float slope) throws Exception {
+        BitMatrix code = new EAN13Writer().encode(EAN, BarcodeFormat.EAN_13, 0, 0);
+        int scale = 2;
+        int left = (width - code.getWidth() * scale) / 2;
+        byte[] data = new byte[width * height];
+        Arrays.fill(data, (byte) 220);
+        for (int x = 0; x < code.getWidth() * scale; x++) {
+            if (code.get(x / scale, 0)) {
+                for (int y = 0; y < barHeight; y++) {
+                    int shear = Math.round((x - code.getWidth() * scale / 2) * slope);
+                    data[(top + y + shear) * width + left + x] = 30;
+                }
+            }
+        }
+        return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+    }
+
+    private static Map<DecodeHintType, Object> hints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.EAN_13));
+        return hints;
+    }
+
+    @Test
+    public void testScanlineRows() {
+        assertArrayEquals(new int[]{50, 30, 70, 10, 90}, ScanlineDecoder.scanlineRows(100, 5));
+        assertArrayEquals(new int[]{1, 0, 2}, ScanlineDecoder.scanlineRows(3, 10));
+    }
+
+    @Test
+    public void testIsOneDimensional() {
+        assertTrue(ScanlineDecoder.isOneDimensional(Arrays.asList(BarcodeFormat.EAN_13, BarcodeFormat.UPC_A)));
+        assertFalse(ScanlineDecoder.isOneDimensional(Arrays.asList(BarcodeFormat.EAN_13, BarcodeFormat.QR_CODE)));
+        assertFalse(ScanlineDecoder.isOneDimensional(null));
+    }
+
+    @Test
+    public void testDecodeOffCenter() throws Exception {
+        // The barcode misses the center row.
+        PlanarYUVLuminanceSource source = image(300, 200, 130, 30, 0);
+        Result result = new ScanlineDecoder(hints(), 9, false).decode(source);
+        assertNotNull(result);
+        assertEquals(EAN, result.getText());
+        assertTrue(result.getResultPoints()[0].getY() >= 130);
+    }
+
+    @Test
+    public void testDecodeAngled() throws Exception {
+        PlanarYUVLuminanceSource source = image(300, 200, 90, 20, 0.25f);
+        assertNull(new ScanlineDecoder(hints(), 9, false).decode(source));
+        Result result = new ScanlineDecoder(hints(), 9, true).decode(source);
+        assertNotNull(result);
+        assertEquals(EAN, result.getText());
+    }
+
+    @Test
+    public void testDecodeAngledPreviewSource() throws Exception {
+        PlanarYUVLuminanceSource image = image(300, 200, 90, 20, 0.25f);
+        RotatedLuminanceSource source = new RotatedLuminanceSource(image.getMatrix(), 300, 200, 0, false, 0, 0, 300, 200, 1);
+        Result result = new ScanlineDecoder(hints(), 9, true).decode(source);
+        assertNotNull(result);
+        assertEquals(EAN, result.getText());
+    }
+}
@@ -0,0 +1,63 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SharpnessGateTest {
+
+    // Vertical stripes of the given period, with a linear ramp between black and white.
+    private static LuminanceSource stripes(int period, int ramp) {
+        int width = 200;
+        int height = 100;
+        byte[] data = new byte[width * height];
+        for (int x = 0; x < width; x++) {
+            int phase = x % period;
+            int value;
+            if (phase < ramp) {
+                value = 255 * phase / ramp;
+            } else if (phase < period / 2) {
+                value = 255;
+            } else if (phase < period / 2 + ramp) {
+                value = 255 - 255 * (phase - period / 2) / ramp;
+            } else {
+                value = 0;
+            }
+            for (int y = 0; y < height; y++) {
+                data[y * width + x] = (byte) value;
+            }
+        }
+        return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+    }
+
+    @Test
+    public void testSharpness() {
+        assertTrue(SharpnessGate.sharpness(stripes(20, 1)) > 4 * SharpnessGate.sharpness(stripes(20, 8)));
+    }
+
+    @Test
+    public void testRejectBlurry() {
+        SharpnessGate gate = new SharpnessGate(0.5f, 2);
+        LuminanceSource sharp = stripes(20, 1);
+        LuminanceSource blurry = stripes(20, 8);
+
+        assertTrue(gate.accept(sharp));
+        assertTrue(gate.accept(sharp));
+        assertFalse(gate.accept(blurry));
+        assertFalse(gate.accept(blurry));
+        // Accepted after 2 consecutive rejections
+        assertTrue(gate.accept(blurry));
+        assertTrue(gate.accept(sharp));
+
+        gate.decodeFinished(true);
+        assertEquals(6, gate.getFrameCount());
+        assertEquals(2, gate.getRejectedCount());
+        assertEquals(1, gate.getSuccessCount());
+    }
+}
@@ -0,0 +1,201 @@
+package com.journeyapps.barcodescanner;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+
+import com.google.zxing.ResultPoint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class SourceDataTest {
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+
+    private static Rect rect(int left, int top, int right, int bottom) {
+        // Set the fields directly, since the stub Rect constructors don't.
+        Rect rect = new Rect();
+        rect.left = left;
+        rect.top = top;
+        rect.right = right;
+        rect.bottom = bottom;
+        return rect;
+    }
+
+    // A 4x4 image with luminance 10 * (y * 4 + x) + 10, and red chroma for x >= 2 and y < 2.
+    private static byte[] image(int format) {
+        byte[] data;
+        switch (format) {
+            case ImageFormat.NV21:
+                data = new byte[16 + 8];
+                for (int i = 0; i < 8; i += 2) {
+                    // V, then U
+                    boolean red = i == 2;
+                    data[16 + i] = (byte) (red ? 255 : 128);
+                    data[16 + i + 1] = (byte) (red ? 85 : 128);
+                }
+                break;
+            case ImageFormat.YV12:
+                // Rows of 16 bytes, V plane then U plane
+                data = new byte[16 * 4 + 2 * 16 * 2];
+                Arrays.fill(data, 64, data.length, (byte) 128);
+                data[64 + 1] = (byte) 255;
+                data[64 + 32 + 1] = (byte) 85;
+                break;
+            case ImageFormat.YUY2:
+            default:
+                // Y0 U Y1 V
+                data = new byte[4 * 4 * 2];
+                for (int y = 0; y < 4; y++) {
+                    for (int x = 0; x < 4; x += 2) {
+                        boolean red = x == 2 && y < 2;
+                        data[y * 8 + x * 2 + 1] = (byte) (red ? 85 : 128);
+                        data[y * 8 + x * 2 + 3] = (byte) (red ? 255 : 128);
+                    }
+                }
+                break;
+        }
+        int lumaStride = format == ImageFormat.YV12 ? 16 : (format == ImageFormat.YUY2 ? 8 : 4);
+        int lumaPixelStride = format == ImageFormat.YUY2 ? 2 : 1;
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                data[y * lumaStride + x * lumaPixelStride] = (byte) (10 * (y * 4 + x) + 10);
+            }
+        }
+        return data;
+    }
+
+    // The camera pixel shown at display pixel (x, y) of a 4x4 image.
+    private static int[] cameraPixel(int rotation, int x, int y) {
+        switch (rotation) {
+            case 90:
+                return new int[]{y, 3 - x};
+            case 180:
+                return new int[]{3 - x, 3 - y};
+            case 270:
+                return new int[]{3 - y, x};
+            default:
+                return new int[]{x, y};
+        }
+    }
+
+    @Test
+    public void testArgbPixels() {
+        for (int format : new int[]{ImageFormat.NV21, ImageFormat.YV12, ImageFormat.YUY2}) {
+            for (int rotation : ROTATIONS) {
+                SourceData source = new SourceData(image(format), 4, 4, format, rotation);
+                int[] transform = source.cameraTransform(0, 0, 1);
+                int[] row = new int[4];
+                for (int y = 0; y < 4; y++) {
+                    source.getArgbRow(transform, y, 4, true, row);
+                    for (int x = 0; x < 4; x++) {
+                        int[] camera = cameraPixel(rotation, x, y);
+                        int luminance = 10 * (camera[1] * 4 + camera[0]) + 10;
+                        int r = (row[x] >> 16) & 0xff;
+                        int g = (row[x] >> 8) & 0xff;
+                        int b = row[x] & 0xff;
+                        String message = format + " " + rotation + " (" + x + ", " + y + ")";
+                        if (camera[0] >= 2 && camera[1] < 2) {
+                            assertTrue(message, r > 200 && g < 100 && b < 100);
+                        } else {
+                            assertEquals(message, 0xff000000 | (luminance << 16) | (luminance << 8) | luminance, row[x]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLuminanceCropAndScale() {
+        for (int rotation : ROTATIONS) {
+            SourceData source = new SourceData(image(ImageFormat.NV21), 4, 4, ImageFormat.NV21, rotation);
+            // Display pixels (1, 2) and (3, 2)
+            int[] transform = source.cameraTransform(1, 2, 2);
+            byte[] out = new byte[3];
+            source.getLuminanceRow(transform, 0, 2, out, 1);
+            for (int x = 0; x < 2; x++) {
+                int[] camera = cameraPixel(rotation, 1 + 2 * x, 2);
+                assertEquals(10 * (camera[1] * 4 + camera[0]) + 10, out[1 + x] & 0xff);
+            }
+        }
+    }
+
+    @Test
+    public void testCopyRegion() {
+        byte[] data = new byte[12 * 8 * 3 / 2];
+        new Random(12).nextBytes(data);
+
+        for (int rotation : ROTATIONS) {
+            SourceData source = new SourceData(data, 12, 8, ImageFormat.NV21, rotation);
+            source.setCropRect(rect(1, 1, 7, 7));
+
+            SourceData copy = source.copyRegion(rect(2, 4, 6, 8));
+            assertEquals(4, copy.getDataWidth());
+            assertEquals(4, copy.getDataHeight());
+            assertEquals(4 * 4 * 3 / 2, copy.getData().length);
+
+            byte[] expected = new RotatedLuminanceSource(data, 12, 8, rotation, false, 2, 4, 4, 4, 1).getMatrix();
+            byte[] actual = new RotatedLuminanceSource(copy.getData(), 4, 4, rotation, false, 0, 0, 4, 4, 1).getMatrix();
+            assertArrayEquals(expected, actual);
+
+            // Result points are relative to the crop rectangle, and translate to the copied region.
+            ResultPoint point = new ResultPoint(2, 3);
+            ResultPoint original = source.translateResultPoint(point);
+            ResultPoint translated = copy.translateResultPoint(point);
+            assertEquals(original.getX() - 2, translated.getX(), 0.0f);
+            assertEquals(original.getY() - 4, translated.getY(), 0.0f);
+        }
+    }
+
+    @Test
+    public void testCopyRegionMirrored() {
+        for (int rotation : ROTATIONS) {
+            SourceData source = new SourceData(new byte[12 * 8 * 3 / 2], 12, 8, ImageFormat.NV21, rotation);
+            source.setCropRect(rect(1, 1, 7, 7));
+            source.setPreviewMirrored(true);
+
+            SourceData copy = source.copyRegion(rect(2, 4, 6, 8));
+            ResultPoint point = new ResultPoint(2, 3);
+            ResultPoint original = source.translateResultPoint(point);
+            ResultPoint translated = copy.translateResultPoint(point);
+            // The region spans x = 2 to 6 before mirroring.
+            assertEquals(original.getX() - (12 - 6), translated.getX(), 0.0f);
+            assertEquals(original.getY() - 4, translated.getY(), 0.0f);
+        }
+    }
+
+    @Test
+    public void testLuminanceOnly() {
+        SourceData source = new SourceData(new byte[12 * 8], 12, 8, ImageFormat.NV21, 90);
+        source.setCropRect(rect(2, 2, 6, 10));
+        assertEquals(4, source.createLuminanceSource().getWidth());
+        // Without chroma, the copy uses neutral chroma.
+        assertEquals((byte) 128, source.copyRegion(rect(2, 2, 6, 10)).getData()[4 * 8]);
+
+        try {
+            new SourceData(new byte[12 * 8 - 1], 12, 8, ImageFormat.NV21, 90);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCopyWithoutImage() {
+        SourceData source = new SourceData(new byte[12 * 8 * 3 / 2], 12, 8, ImageFormat.NV21, 90);
+        source.setCropRect(rect(1, 2, 5, 6));
+        SourceData copy = source.copyWithoutImage();
+
+        assertFalse(copy.hasImageData());
+        assertEquals(12, copy.getDataWidth());
+        ResultPoint point = new ResultPoint(1, 1);
+        assertEquals(source.translateResultPoint(point), copy.translateResultPoint(point));
+    }
+}
@@ -0,0 +1,76 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class StaticSceneGateTest {
+
+    // A random scene, with a little noise added.
+    private static LuminanceSource scene(int seed, int noiseSeed) {
+        int width = 160;
+        int height = 120;
+        byte[] data = new byte[width * height];
+        Random random = new Random(seed);
+        Random noise = new Random(noiseSeed);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(200) + noise.nextInt(4));
+        }
+        return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+    }
+
+    @Test
+    public void testSkipUnchanged() {
+        StaticSceneGate gate = new StaticSceneGate(6, 10);
+        assertTrue(gate.accept(scene(1, 1)));
+        gate.decodeFinished(false);
+
+        // Same scene, different noise
+        assertFalse(gate.accept(scene(1, 2)));
+        assertFalse(gate.accept(scene(1, 3)));
+
+        // The scene changed
+        assertTrue(gate.accept(scene(2, 1)));
+        gate.decodeFinished(false);
+        assertFalse(gate.accept(scene(2, 2)));
+        assertEquals(3, gate.getSkippedCount());
+    }
+
+    @Test
+    public void testNoSkipAfterSuccess() {
+        StaticSceneGate gate = new StaticSceneGate(6, 10);
+        assertTrue(gate.accept(scene(1, 1)));
+        gate.decodeFinished(true);
+        assertTrue(gate.accept(scene(1, 2)));
+    }
+
+    @Test
+    public void testMaxSkipped() {
+        StaticSceneGate gate = new StaticSceneGate(6, 2);
+        assertTrue(gate.accept(scene(1, 1)));
+        gate.decodeFinished(false);
+        assertFalse(gate.accept(scene(1, 1)));
+        assertFalse(gate.accept(scene(1, 1)));
+        assertTrue(gate.accept(scene(1, 1)));
+    }
+
+    @Test
+    public void testComposite() {
+        StaticSceneGate scene = new StaticSceneGate(6, 10);
+        SharpnessGate sharpness = new SharpnessGate();
+        CompositeFrameGate gate = new CompositeFrameGate(scene, sharpness);
+        assertTrue(gate.accept(scene(1, 1)));
+        gate.decodeFinished(false);
+        assertFalse(gate.accept(scene(1, 2)));
+        // The second gate is not checked for a skipped frame
+        assertEquals(1, sharpness.getFrameCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Synthetic images for the decoder tests.
+ */
+final class TestImages {
+    private TestImages() {
+    }
+
+    /**
+     * A QR code without a quiet zone, with one bit per module.
+     */
+    static BitMatrix qrCode(String text) throws WriterException {
+        return new QRCodeWriter().encode(text, BarcodeFormat.QR_CODE, 0, 0,
+                Collections.singletonMap(EncodeHintType.MARGIN, 0));
+    }
+
+    /**
+     * An image filled with the background luminance.
+     */
+    static byte[] blank(int width, int height, int background) {
+        byte[] data = new byte[width * height];
+        Arrays.fill(data, (byte) background);
+        return data;
+    }
+
+    /**
+     * Draw the set bits of a matrix at (left, top), with modules of scale pixels.
+     */
+    static void draw(byte[] data, int width, BitMatrix code, int scale, int left, int top, int foreground) {
+        for (int y = 0; y < code.getHeight() * scale; y++) {
+            for (int x = 0; x < code.getWidth() * scale; x++) {
+                if (code.get(x / scale, y / scale)) {
+                    data[(top + y) * width + left + x] = (byte) foreground;
+                }
+            }
+        }
+    }
+
+    static PlanarYUVLuminanceSource source(byte[] data, int width, int height) {
+        return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+    }
+
+    /**
+     * A white image with black QR codes drawn at the given positions, with modules of scale pixels.
+     */
+    static PlanarYUVLuminanceSource qrCodes(int width, int height, int scale, int[][] positions, String[] texts) throws WriterException {
+        byte[] data = blank(width, height, 255);
+        for (int i = 0; i < positions.length; i++) {
+            draw(data, width, qrCode(texts[i]), scale, positions[i][0], positions[i][1], 0);
+        }
+        return source(data, width, height);
+    }
+
+    /**
+     * A QR code with modules of 3 pixels and a margin of 10 pixels, dark on light or, if inverted,
+     * light on dark.
+     */
+    static PlanarYUVLuminanceSource qrCode(String text, boolean inverted) throws WriterException {
+        BitMatrix code = qrCode(text);
+        int size = code.getWidth() * 3 + 20;
+        byte[] data = blank(size, size, inverted ? 20 : 230);
+        draw(data, size, code, 3, 10, 10, inverted ? 230 : 20);
+        return source(data, size, size);
+    }
+}
@@ -0,0 +1,59 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TiledDecoderTest {
+
+    private static Map<DecodeHintType, Object> hints() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        return hints;
+    }
+
+    @Test
+    public void testTileOrigins() {
+        assertArrayEquals(new int[]{0}, TiledDecoder.tileOrigins(100, 100, 50));
+        assertArrayEquals(new int[]{0, 50, 100}, TiledDecoder.tileOrigins(200, 100, 50));
+        // Evenly spread when the length is not a multiple of the step
+        assertArrayEquals(new int[]{0, 35, 70}, TiledDecoder.tileOrigins(170, 100, 50));
+    }
+
+    @Test
+    public void testDecodeOffCenter() throws Exception {
+        PlanarYUVLuminanceSource source = TestImages.qrCodes(480, 360, 3, new int[][]{{380, 270}}, new String[]{"tile"});
+        Result result = new TiledDecoder(hints(), 80).decode(source);
+
+        assertNotNull(result);
+        assertEquals("tile", result.getText());
+        // Result points are in the coordinates of the full image.
+        for (ResultPoint point : result.getResultPoints()) {
+            assertTrue(point.getX() > 380 && point.getX() < 480);
+            assertTrue(point.getY() > 270 && point.getY() < 360);
+        }
+    }
+
+    @Test
+    public void testDecodeAll() throws Exception {
+        PlanarYUVLuminanceSource source = TestImages.qrCodes(480, 360, 3, new int[][]{{10, 10}, {380, 270}}, new String[]{"a", "b"});
+        List<Result> results = new TiledDecoder(hints(), 80).decodeAll(source);
+
+        assertEquals(2, results.size());
+        assertNotEquals(results.get(0).getText(), results.get(1).getText());
+    }
+}
@@ -0,0 +1,142 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.oned.EAN13Writer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class TimeBudgetDecoderTest {
+    /**
+     * A simple source that supports rotation.
+     */
+    private static class MatrixSource extends LuminanceSource {
+        private final byte[] matrix;
+
+        MatrixSource(byte[] matrix, int width, int height) {
+            super(width, height);
+            this.matrix = matrix;
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            if (row == null || row.length < getWidth()) {
+                row = new byte[getWidth()];
+            }
+            System.arraycopy(matrix, y * getWidth(), row, 0, getWidth());
+            return row;
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            return matrix;
+        }
+
+        @Override
+        public boolean isRotateSupported() {
+            return true;
+        }
+
+        @Override
+        public LuminanceSource rotateCounterClockwise() {
+            int width = getWidth();
+            int height = getHeight();
+            byte[] rotated = new byte[width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    rotated[(width - 1 - x) * height + y] = matrix[y * width + x];
+                }
+            }
+            return new MatrixSource(rotated, height, width);
+        }
+    }
+
+    // A white image with a black matrix drawn at (left, top).
+    private static MatrixSource image(int width, int height, BitMatrix code, int scale, int left, int top) {
+        byte[] data = TestImages.blank(width, height, 255);
+        TestImages.draw(data, width, code, scale, left, top, 0);
+        return new MatrixSource(data, width, height);
+    }
+
+    private static Map<DecodeHintType, Object> hints(BarcodeFormat... formats) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Arrays.asList(formats));
+        return hints;
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        MatrixSource source = image(200, 200, TestImages.qrCode("budget"), 3, 40, 40);
+
+        TimeBudgetDecoder decoder = new TimeBudgetDecoder(hints(BarcodeFormat.EAN_13, BarcodeFormat.QR_CODE), 10000);
+        assertEquals("budget", decoder.decode(source).getText());
+        assertEquals(0, decoder.getAbandonedFrameCount());
+
+        // The 1D reader runs first, then the frame is abandoned before binarizing.
+        decoder = new TimeBudgetDecoder(hints(BarcodeFormat.EAN_13, BarcodeFormat.QR_CODE), 0);
+        assertNull(decoder.decode(source));
+        assertEquals(1, decoder.getAbandonedFrameCount());
+
+        // Nothing left to abandon after the last stage
+        decoder = new TimeBudgetDecoder(hints(BarcodeFormat.EAN_13), 0);
+        assertNull(decoder.decode(source));
+        assertEquals(0, decoder.getAbandonedFrameCount());
+    }
+
+    @Test
+    public void testSharedStats() throws Exception {
+        MatrixSource source = image(200, 200, TestImages.qrCode("budget"), 3, 40, 40);
+        FrameBudgetStats stats = new FrameBudgetStats();
+        TimeBudgetDecoder first = new TimeBudgetDecoder(hints(BarcodeFormat.EAN_13, BarcodeFormat.QR_CODE), 0, stats);
+        TimeBudgetDecoder second = new TimeBudgetDecoder(hints(BarcodeFormat.EAN_13, BarcodeFormat.QR_CODE), 0, stats);
+        assertNull(first.decode(source));
+        assertNull(second.decode(source));
+
+        assertEquals(2, stats.getFrameCount());
+        assertEquals(2, stats.getAbandonedFrameCount());
+        assertEquals(2, first.getAbandonedFrameCount());
+    }
+
+    @Test
+    public void testRotated() throws Exception {
+        BitMatrix code = new EAN13Writer().encode("5901234123457", BarcodeFormat.EAN_13, 0, 60);
+        // Rotate the barcode, so that the bars are horizontal.
+        BitMatrix vertical = new BitMatrix(code.getHeight(), code.getWidth());
+        for (int y = 0; y < code.getHeight(); y++) {
+            for (int x = 0; x < code.getWidth(); x++) {
+                if (code.get(x, y)) {
+                    vertical.set(y, code.getWidth() - 1 - x);
+                }
+            }
+        }
+        MatrixSource source = image(200, 260, vertical, 2, 30, 20);
+        Map<DecodeHintType, Object> hints = hints(BarcodeFormat.EAN_13);
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+
+        MultiFormatReader reader = new MultiFormatReader();
+        Result expected = reader.decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+        Result result = new TimeBudgetDecoder(hints, 10000).decode(source);
+
+        assertNotNull(result);
+        assertEquals(expected.getText(), result.getText());
+        assertArrayEquals(expected.getResultPoints(), result.getResultPoints());
+        assertEquals(expected.getResultMetadata().get(ResultMetadataType.ORIENTATION),
+                result.getResultMetadata().get(ResultMetadataType.ORIENTATION));
+    }
+}
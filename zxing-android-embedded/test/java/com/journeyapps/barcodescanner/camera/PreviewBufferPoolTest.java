@@ -0,0 +1,63 @@
+package com.journeyapps.barcodescanner.camera;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PreviewBufferPoolTest {
+
+    @Test
+    public void testReuse() {
+        PreviewBufferPool pool = new PreviewBufferPool(2);
+        byte[] a = pool.acquire(100);
+        assertEquals(100, a.length);
+        pool.release(a);
+        assertSame(a, pool.acquire(100));
+    }
+
+    @Test
+    public void testSizeChange() {
+        PreviewBufferPool pool = new PreviewBufferPool(2);
+        byte[] a = pool.acquire(100);
+        pool.release(a);
+        byte[] b = pool.acquire(200);
+        assertEquals(200, b.length);
+        assertEquals(0, pool.getIdleCount());
+
+        // A buffer of the old size is not accepted anymore.
+        pool.release(a);
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testMaxBuffers() {
+        PreviewBufferPool pool = new PreviewBufferPool(2);
+        byte[] a = pool.acquire(10);
+        byte[] b = pool.acquire(10);
+        byte[] c = pool.acquire(10);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void testTrim() {
+        PreviewBufferPool pool = new PreviewBufferPool(3);
+        byte[] a = pool.acquire(10);
+        byte[] b = pool.acquire(10);
+        pool.release(a);
+        pool.release(b);
+
+        pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals(1, pool.getIdleCount());
+
+        pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(0, pool.getIdleCount());
+    }
+}